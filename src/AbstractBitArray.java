@@ -0,0 +1,214 @@
+/**
+ * An array of bits which is stored in 64 bit words.
+ * Bits which are beyond the length of the array are always kept off.
+ */
+public abstract class AbstractBitArray {
+    private static final int BITS_PER_BYTE = 8;
+    static final int BITS_PER_WORD = Long.SIZE;
+    private static final int BYTES_PER_WORD = BITS_PER_WORD / BITS_PER_BYTE;
+
+    /**
+     * log2(BITS_PER_WORD), used to turn the division by the word size into a shift
+     */
+    private static final int WORD_SHIFT = 6;
+
+    /**
+     * BITS_PER_WORD - 1, used to turn the modulo by the word size into a mask
+     */
+    private static final int WORD_MASK = BITS_PER_WORD - 1;
+
+    static final long FALSE = 0L;
+
+    private final int length;
+
+    protected AbstractBitArray(int length) {
+        if (length < 0) {
+            throw new RuntimeException("The length must be a non-negative number.");
+        }
+
+        this.length = length;
+    }
+
+    /**
+     * Returns the length of the array, the amount of bits
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Sets the bit at the given index.
+     * @param index The index
+     * @param value The new value of the bit
+     */
+    public abstract void set(int index, boolean value);
+
+    /**
+     * Returns whether the bit at the given index is 1 or 0.
+     * @param index The bit index
+     */
+    public abstract boolean get(int index);
+
+    /**
+     * Returns the amount of words the bits are stored in
+     */
+    protected abstract int wordsLength();
+
+    /**
+     * Returns the word at the given word index
+     * @param wordIndex The index of the word
+     */
+    protected abstract long getWord(int wordIndex);
+
+    /**
+     * Turns on the bits of the word at the given index which are on in the given word
+     * @param wordIndex The index of the word
+     * @param word The bits to turn on
+     */
+    protected abstract void orWord(int wordIndex, long word);
+
+    /**
+     * Turns off the bits of the word at the given index which are off in the given word
+     * @param wordIndex The index of the word
+     * @param word The bits to keep
+     */
+    protected abstract void andWord(int wordIndex, long word);
+
+    /**
+     * Turns on every bit which is on in the other array (this = this | other).
+     * @param other The other bit array, must be of the same length
+     */
+    public void or(AbstractBitArray other) {
+        validateSameLength(other);
+        for (int i = 0; i < this.wordsLength(); i++) {
+            this.orWord(i, other.getWord(i));
+        }
+    }
+
+    /**
+     * Turns off every bit which is off in the other array (this = this & other).
+     * @param other The other bit array, must be of the same length
+     */
+    public void and(AbstractBitArray other) {
+        validateSameLength(other);
+        for (int i = 0; i < this.wordsLength(); i++) {
+            this.andWord(i, other.getWord(i));
+        }
+    }
+
+    /**
+     * Returns the amount of bits which are on
+     */
+    public int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < this.wordsLength(); i++) {
+            cardinality += Long.bitCount(this.getWord(i));
+        }
+
+        return cardinality;
+    }
+
+    /**
+     * Turns off all of the bits
+     */
+    public void clear() {
+        for (int i = 0; i < this.wordsLength(); i++) {
+            this.andWord(i, FALSE);
+        }
+    }
+
+    /**
+     * Turns on all of the bits
+     */
+    public void fill() {
+        int wordsLength = this.wordsLength();
+        for (int i = 0; i < wordsLength; i++) {
+            this.orWord(i, ~FALSE);
+        }
+
+        // keep the bits which are beyond the length off
+        int lastWordBits = this.length() & WORD_MASK;
+        if (lastWordBits != 0) {
+            this.andWord(wordsLength - 1, getBitMask(lastWordBits) - 1);
+        }
+    }
+
+    protected void validateIndex(int index) {
+        if (index < 0 | index >= this.length()) {
+            throw new RuntimeException("index out of range.");
+        }
+    }
+
+    private void validateSameLength(AbstractBitArray other) {
+        if (other == null) {
+            throw new RuntimeException("other is null.");
+        }
+        if (other.length() != this.length()) {
+            throw new RuntimeException("the bit arrays are not of the same length.");
+        }
+    }
+
+    /**
+     * Returns the amount of words needed to store the given amount of bits
+     * @param length The amount of bits
+     */
+    protected static int getWordsLength(int length) {
+        return length > 0 ? (getWordIndex(length - 1) + 1) : 0;
+    }
+
+    /**
+     * Returns the index of the word in the words array of the bit in index 'index'
+     * @param index The index of the bit
+     */
+    protected static int getWordIndex(int index) {
+        return index >>> WORD_SHIFT;
+    }
+
+    /**
+     * Returns the word value used to single out the bit we care about in the word
+     * @param index The index of the bit
+     */
+    protected static long getBitMask(int index) {
+        // take 0...01 and left shift it by the index of the bit in the word itself
+        return 1L << (index & WORD_MASK);
+    }
+
+    @Override
+    public String toString() {
+        // keep the byte grouping of the string, 8 bits per group
+        StringBuilder sb = new StringBuilder();
+        int bytesLength = (this.length() + BITS_PER_BYTE - 1) / BITS_PER_BYTE;
+        for (int i = 0; i < bytesLength; i++) {
+            if (i > 0) {
+                sb.append(" ");
+            }
+
+            appendString(sb, getByte(i));
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Returns the byte at the given byte index,
+     * as the 8 lower bits of an int
+     * @param byteIndex The index of the byte
+     */
+    private int getByte(int byteIndex) {
+        long word = this.getWord(byteIndex / BYTES_PER_WORD);
+        int shift = (byteIndex % BYTES_PER_WORD) * BITS_PER_BYTE;
+        return (int)(word >>> shift) & 0xff;
+    }
+
+    /**
+     * Appends a byte to as binary string to a string builder
+     * @param sb The string builder to append the binary string to
+     * @param item A byte, as the 8 lower bits of an int
+     */
+    private void appendString(StringBuilder sb, int item) {
+        // start from the last bit of the byte
+        for (int bit = BITS_PER_BYTE - 1; bit >= 0; bit--) {
+            sb.append(((item >>> bit) & 1) != 0 ? "1" : "0");
+        }
+    }
+}
@@ -0,0 +1,276 @@
+import java.nio.ByteBuffer;
+
+/**
+ * A hash table of the passwords themselves, rather than of their keys, so two passwords
+ * are never mistaken for each other because they have the same key.
+ * The chars of the passwords are kept one after the other in an arena, a direct (off heap) byte buffer,
+ * so there is no String object for each password for the garbage collector to scan.
+ * The table holds 32 bits of the hash of each password and its offset in the arena,
+ * and the password in the arena is compared only when the hash bits match.
+ */
+public class ArenaHashTable implements PasswordSet {
+    private static final int INITIAL_ARENA_CAPACITY = 1 << 16;
+
+    /**
+     * A password is held in the arena as an int header and its chars.
+     * The header is the amount of chars, with this bit on when they are 2 bytes each (otherwise
+     * all of them fit in a byte, which is the case for nearly all of the passwords).
+     */
+    private static final int WIDE_CHARS = 1 << 31;
+    private static final int HEADER_BYTES = Integer.BYTES;
+    private static final int MAX_NARROW_CHAR = 0xff;
+
+    private static final long EMPTY_SLOT = 0;
+
+    /**
+     * The slots, the high 32 bits of a slot are bits of the hash of the password
+     * and the low 32 bits are the offset of the password in the arena + 1 (so 0 is an empty slot)
+     */
+    private long[] table;
+
+    /**
+     * 32 - log2 of the length of the table, the length of the table is a power of 2
+     */
+    private int shift;
+
+    /**
+     * The amount of passwords in the table
+     */
+    private int size;
+
+    /**
+     * The passwords, the position of the buffer is the end of the used part
+     */
+    private ByteBuffer arena;
+
+    /**
+     * The hash function of the passwords
+     */
+    private final PasswordHashFunction keyHashFunction;
+
+    public ArenaHashTable(String m2) {
+        this(m2, new MixPasswordHashFunction(0));
+    }
+
+    /**
+     * @param m2 The initial size of the table, it grows when needed
+     * @param keyHashFunction The hash function of the passwords, the table uses its lower 32 bits
+     * both to select the slot and to avoid comparing different passwords
+     * (a 64 bit hash function in the other constructor)
+     */
+    public ArenaHashTable(String m2, PasswordHashFunction keyHashFunction) {
+        if (keyHashFunction == null) {
+            throw new RuntimeException("keyHashFunction is null.");
+        }
+
+        this.keyHashFunction = keyHashFunction;
+        this.allocate(HashTable.tableLength(HashTable.parseM2(m2)));
+        this.size = 0;
+        this.arena = ByteBuffer.allocateDirect(INITIAL_ARENA_CAPACITY);
+    }
+
+    public void updateTable(String filePath) {
+        Utils.iterateFileLines(filePath, password -> this.insert(password));
+    }
+
+    public boolean contains(String password) {
+        long hash = this.keyHashFunction.hash(password);
+        int mask = this.table.length - 1;
+        for (int i = this.slot(hash); ; i = (i + 1) & mask) {
+            long slot = this.table[i];
+            if (slot == EMPTY_SLOT) {
+                return false;
+            }
+            if (slotHash(slot) == (int)hash && this.equalsArena(slotOffset(slot), password)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Inserts the password to the table, if it isn't there already
+     * @param password The password
+     */
+    public void insert(String password) {
+        long hash = this.keyHashFunction.hash(password);
+        int mask = this.table.length - 1;
+        int i = this.slot(hash);
+        for (long slot; (slot = this.table[i]) != EMPTY_SLOT; i = (i + 1) & mask) {
+            if (slotHash(slot) == (int)hash && this.equalsArena(slotOffset(slot), password)) {
+                return;
+            }
+        }
+
+        int offset = this.appendToArena(password);
+        this.table[i] = ((long)(int)hash << Integer.SIZE) | (offset + 1L);
+        this.size++;
+        if (this.size >= this.table.length * HashTable.MAX_LOAD_FACTOR) {
+            this.grow();
+        }
+    }
+
+    public void deleteKeysFromTable(String filePath) {
+        Utils.iterateFileLines(filePath, password -> this.delete(password));
+    }
+
+    /**
+     * Deletes the password from the table without leaving a tombstone (backward shift deletion).
+     * The space of the password in the arena isn't reused.
+     * @param password The password
+     * @return Whether the password was in the table (and therefore deleted)
+     */
+    public boolean delete(String password) {
+        long hash = this.keyHashFunction.hash(password);
+        int mask = this.table.length - 1;
+        int hole = this.slot(hash);
+        for (long slot; ; hole = (hole + 1) & mask) {
+            slot = this.table[hole];
+            if (slot == EMPTY_SLOT) {
+                return false;
+            }
+            if (slotHash(slot) == (int)hash && this.equalsArena(slotOffset(slot), password)) {
+                break;
+            }
+        }
+
+        for (int i = (hole + 1) & mask; this.table[i] != EMPTY_SLOT; i = (i + 1) & mask) {
+            // the password can fill the hole if the hole is between its hash and its slot
+            int home = HashTable.hashFunction(slotHash(this.table[i]), this.shift);
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                this.table[hole] = this.table[i];
+                hole = i;
+            }
+        }
+
+        this.table[hole] = EMPTY_SLOT;
+        this.size--;
+        return true;
+    }
+
+    /**
+     * Returns the amount of bytes of the arena which are used by the passwords
+     */
+    public int getArenaSize() {
+        return this.arena.position();
+    }
+
+    public String getSearchTime(String filePath) {
+        return Utils.getSearchTime(filePath, password -> contains(password));
+    }
+
+    /**
+     * Doubles the length of the table. The hash bits are in the slots,
+     * so the passwords in the arena aren't read.
+     */
+    private void grow() {
+        long[] oldTable = this.table;
+        this.allocate(oldTable.length * 2);
+        int mask = this.table.length - 1;
+        for (long slot : oldTable) {
+            if (slot != EMPTY_SLOT) {
+                int i = HashTable.hashFunction(slotHash(slot), this.shift);
+                while (this.table[i] != EMPTY_SLOT) {
+                    i = (i + 1) & mask;
+                }
+
+                this.table[i] = slot;
+            }
+        }
+    }
+
+    private void allocate(int length) {
+        if (length <= 0) {
+            throw new RuntimeException("the hash table is too big.");
+        }
+
+        this.table = new long[length];
+        this.shift = Integer.SIZE - Integer.numberOfTrailingZeros(length);
+    }
+
+    private int slot(long hash) {
+        return HashTable.hashFunction((int)hash, this.shift);
+    }
+
+    private static int slotHash(long slot) {
+        return (int)(slot >>> Integer.SIZE);
+    }
+
+    private static int slotOffset(long slot) {
+        return (int)slot - 1;
+    }
+
+    /**
+     * Adds the password to the end of the arena
+     * @param password The password
+     * @return The offset of the password in the arena
+     */
+    private int appendToArena(String password) {
+        int length = password.length();
+        boolean wide = false;
+        for (int i = 0; i < length && !wide; i++) {
+            wide = password.charAt(i) > MAX_NARROW_CHAR;
+        }
+
+        this.ensureArenaCapacity(HEADER_BYTES + (long)length * (wide ? Character.BYTES : Byte.BYTES));
+        int offset = this.arena.position();
+        this.arena.putInt(wide ? length | WIDE_CHARS : length);
+        for (int i = 0; i < length; i++) {
+            if (wide) {
+                this.arena.putChar(password.charAt(i));
+            }
+            else {
+                this.arena.put((byte)password.charAt(i));
+            }
+        }
+
+        return offset;
+    }
+
+    /**
+     * Makes sure the given amount of bytes can be added to the arena, moving it to a bigger buffer if not
+     * @param bytes The amount of bytes
+     */
+    private void ensureArenaCapacity(long bytes) {
+        long required = this.arena.position() + bytes;
+        if (required > this.arena.capacity()) {
+            long capacity = Math.max(required, 2L * this.arena.capacity());
+            if (capacity > Integer.MAX_VALUE - 1) {
+                capacity = Integer.MAX_VALUE - 1;
+                if (required > capacity) {
+                    throw new RuntimeException("the arena is full.");
+                }
+            }
+
+            ByteBuffer arena = ByteBuffer.allocateDirect((int)capacity);
+            this.arena.flip();
+            arena.put(this.arena);
+            this.arena = arena;
+        }
+    }
+
+    /**
+     * Returns whether the password in the arena at the given offset is the given password
+     * @param offset The offset
+     * @param password The password
+     */
+    private boolean equalsArena(int offset, String password) {
+        int header = this.arena.getInt(offset);
+        int length = header & ~WIDE_CHARS;
+        if (length != password.length()) {
+            return false;
+        }
+
+        int charsOffset = offset + HEADER_BYTES;
+        boolean wide = (header & WIDE_CHARS) != 0;
+        for (int i = 0; i < length; i++) {
+            char c = wide ?
+                     this.arena.getChar(charsOffset + i * Character.BYTES) :
+                     (char)(this.arena.get(charsOffset + i) & MAX_NARROW_CHAR);
+            if (c != password.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,81 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bit array which can be read and written by many threads at once.
+ * Every update of a word is an atomic compare-and-set, so concurrent updates
+ * of different bits of the same word never lose each other.
+ */
+public class AtomicBitArray extends AbstractBitArray {
+    private final AtomicLongArray words;
+
+    public AtomicBitArray(int length) {
+        super(length);
+        this.words = new AtomicLongArray(getWordsLength(length));
+    }
+
+    /**
+     * Sets the bit at the given index.
+     * @param index The index
+     * @param value The new value of the bit
+     */
+    @Override
+    public void set(int index, boolean value) {
+        validateIndex(index);
+
+        int wordIndex = getWordIndex(index);
+        if (value) {
+            // we need to turn the bit on
+            this.orWord(wordIndex, getBitMask(index));
+        }
+        else {
+            // we need to turn the bit off
+            this.andWord(wordIndex, ~getBitMask(index));
+        }
+    }
+
+    /**
+     * Returns whether the bit at the given index is 1 or 0.
+     * @param index The bit index
+     */
+    @Override
+    public boolean get(int index) {
+        validateIndex(index);
+        return (this.words.get(getWordIndex(index)) & getBitMask(index)) != FALSE;
+    }
+
+    @Override
+    protected int wordsLength() {
+        return this.words.length();
+    }
+
+    @Override
+    protected long getWord(int wordIndex) {
+        return this.words.get(wordIndex);
+    }
+
+    @Override
+    protected void orWord(int wordIndex, long word) {
+        long current;
+        do {
+            current = this.words.get(wordIndex);
+
+            // don't write (and invalidate the cache line of the other threads)
+            // when the bits are already on, which is the common case in a
+            // filled bloom filter
+            if ((current | word) == current) {
+                return;
+            }
+        } while (!this.words.compareAndSet(wordIndex, current, current | word));
+    }
+
+    @Override
+    protected void andWord(int wordIndex, long word) {
+        long current;
+        do {
+            current = this.words.get(wordIndex);
+            if ((current & word) == current) {
+                return;
+            }
+        } while (!this.words.compareAndSet(wordIndex, current, current & word));
+    }
+}
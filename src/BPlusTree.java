@@ -0,0 +1,153 @@
+/**
+ * A B+ tree of passwords: all of the passwords are in the leaves, which are chained from left
+ * to right, so passwords in a range (or with a prefix) are read with a cursor which walks the
+ * leaves, instead of going over the whole tree.
+ * Unlike BTree, a password is held once even if it is inserted more than once.
+ */
+public class BPlusTree {
+    private final int t;
+    private BPlusTreeNode root;
+
+    public BPlusTree(String t) {
+        try {
+            this.t = Integer.parseInt(t);
+        }
+        catch (NumberFormatException ex) {
+            throw new RuntimeException("t is not a number", ex);
+        }
+
+        if (this.t < 2) {
+            throw new RuntimeException("t must be at least 2.");
+        }
+
+        root = new BPlusTreeNode(this.t, true);
+    }
+
+    public void insert(String password) {
+        rootInsert(password.toLowerCase());
+    }
+
+    public boolean contains(String password) {
+        String key = password.toLowerCase();
+        BPlusTreeNode leaf = root.findLeaf(key);
+        int i = leaf.lowerBound(key);
+        return i < leaf.size() && key.equals(leaf.keys.get(i));
+    }
+
+    public void delete(String password) {
+        rootDelete(password.toLowerCase());
+    }
+
+    /**
+     * Returns a cursor over the passwords in the range [from, to) in ascending order
+     * @param from The first password of the range (inclusive), null for no start
+     * @param to The password to end the range before (exclusive), null for no end
+     */
+    public BPlusTreeCursor range(String from, String to) {
+        return cursor(from != null ? from.toLowerCase() : null, to != null ? to.toLowerCase() : null, null);
+    }
+
+    /**
+     * Returns a cursor over the passwords which start with the prefix in ascending order
+     * @param prefix The prefix
+     */
+    public BPlusTreeCursor prefix(String prefix) {
+        String key = prefix.toLowerCase();
+        return cursor(key, null, key);
+    }
+
+    /**
+     * Returns a cursor which starts at the first password which is not smaller than the given one
+     * @param from The password to start at, null to start at the first password
+     * @param end The password to end before (exclusive), null for no end
+     * @param prefix The prefix all of the passwords must start with, null for any password
+     */
+    private BPlusTreeCursor cursor(String from, String end, String prefix) {
+        BPlusTreeNode leaf;
+        int index;
+        if (from == null) {
+            leaf = root;
+            while (!leaf.isLeaf()) {
+                leaf = leaf.children.getFirst();
+            }
+
+            index = 0;
+        }
+        else {
+            leaf = root.findLeaf(from);
+            index = leaf.lowerBound(from);
+        }
+
+        return new BPlusTreeCursor(leaf, index, end, prefix);
+    }
+
+    /**
+     * Returns the amount of passwords which start with the prefix
+     * @param prefix The prefix
+     */
+    public int countPrefix(String prefix) {
+        int count = 0;
+        for (BPlusTreeCursor cursor = prefix(prefix); cursor.hasNext(); cursor.next()) {
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Inserts the key, should be called on the root only
+     * @param password The key to insert
+     */
+    private void rootInsert(String password) {
+        // if the root is full, we need to split it and make a new root
+        if (root.isFull()) {
+            BPlusTreeNode newRoot = new BPlusTreeNode(t, false);
+            newRoot.children.insertFirst(root);
+            newRoot.splitChild(0);
+            root = newRoot;
+        }
+
+        root.insertNonFull(password);
+    }
+
+    /**
+     * Deletes the key, should be called on the root only
+     * @param password The key to delete
+     */
+    private void rootDelete(String password) {
+        root.delete(password);
+
+        // the root lost its last key when its last 2 children were merged, the merged child is the new root
+        if (!root.isLeaf() && root.size() == 0) {
+            root = root.children.getFirst();
+        }
+    }
+
+    /**
+     * Returns the passwords in ascending order, separated by commas
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (BPlusTreeCursor cursor = range(null, null); cursor.hasNext(); ) {
+            sb.append(cursor.next());
+            if (cursor.hasNext()) {
+                sb.append(",");
+            }
+        }
+
+        return sb.toString();
+    }
+
+    public void createFullTree(String filePath) {
+        Utils.iterateFileLines(filePath, password -> this.insert(password));
+    }
+
+    public String getSearchTime(String filePath) {
+        return Utils.getSearchTime(filePath, password -> contains(password));
+    }
+
+    public void deleteKeysFromTree(String filePath) {
+        Utils.iterateFileLines(filePath, password -> this.delete(password));
+    }
+}
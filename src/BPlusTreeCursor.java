@@ -0,0 +1,66 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A cursor over keys of a B+ tree in ascending order, which walks the chain of the leaves.
+ * It starts at a key of a leaf and ends before the first key which doesn't pass its filter
+ * (the end of a range or the end of the keys with a prefix), so it reads only the leaves it returns keys of.
+ */
+public class BPlusTreeCursor implements Iterator<String> {
+    private BPlusTreeNode leaf;
+    private int index;
+
+    /**
+     * The key to end before (exclusive), null for no end
+     */
+    private final String end;
+
+    /**
+     * The prefix all of the keys must start with, null for any key
+     */
+    private final String prefix;
+
+    /**
+     * @param leaf The leaf of the first key
+     * @param index The index of the first key in the leaf (may be its size, then it's in the next leaf)
+     * @param end The key to end before (exclusive), null for no end
+     * @param prefix The prefix all of the keys must start with, null for any key
+     */
+    BPlusTreeCursor(BPlusTreeNode leaf, int index, String end, String prefix) {
+        this.leaf = leaf;
+        this.index = index;
+        this.end = end;
+        this.prefix = prefix;
+        skipEmptyLeaves();
+    }
+
+    public boolean hasNext() {
+        if (leaf == null) {
+            return false;
+        }
+
+        String key = leaf.keys.get(index);
+        return (end == null || key.compareTo(end) < 0) && (prefix == null || key.startsWith(prefix));
+    }
+
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        String key = leaf.keys.get(index);
+        index++;
+        skipEmptyLeaves();
+        return key;
+    }
+
+    /**
+     * Moves to the next leaf while the cursor is past the keys of its leaf
+     */
+    private void skipEmptyLeaves() {
+        while (leaf != null && index >= leaf.size()) {
+            leaf = leaf.next;
+            index = 0;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/**
+ * A node of a B+ tree. All of the keys are in the leaves, which are chained from left to right.
+ * The keys of an inner node only separate its children: the keys in the subtree of child i are
+ * not smaller than key i-1 and smaller than key i.
+ */
+class BPlusTreeNode {
+    final Array<String> keys;
+
+    /**
+     * The children of an inner node, null for a leaf
+     */
+    final Array<BPlusTreeNode> children;
+
+    /**
+     * The leaf to the right of this leaf, null for the last leaf and inner nodes
+     */
+    BPlusTreeNode next;
+
+    private final int t;
+
+    BPlusTreeNode(int t, boolean leaf) {
+        this.t = t;
+        keys = new Array<>(new String[2*t - 1]);
+        children = leaf ? null : new Array<>(new BPlusTreeNode[keys.capacity() + 1]);
+        next = null;
+    }
+
+    public boolean isLeaf() {
+        return children == null;
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    public boolean isFull() {
+        return size() == keys.capacity();
+    }
+
+    /**
+     * Returns whether this node holds less keys than a node which isn't the root must hold
+     */
+    boolean isUnderflowed() {
+        return size() < t - 1;
+    }
+
+    /**
+     * Returns whether a key can be taken from this node without it underflowing
+     */
+    private boolean canLend() {
+        return size() > t - 1;
+    }
+
+    /**
+     * Returns the first index whose key is not smaller than the given key (binary search)
+     * @param password The key
+     */
+    int lowerBound(String password) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (password.compareTo(keys.get(middle)) > 0) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Returns the index of the child whose subtree the given key belongs to,
+     * which is the amount of keys of this node which are not bigger than it (binary search)
+     * @param password The key
+     */
+    int childIndex(String password) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (password.compareTo(keys.get(middle)) >= 0) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Finds the leaf the given key belongs to in the subtree rooted at this node
+     * @param password The key
+     */
+    BPlusTreeNode findLeaf(String password) {
+        BPlusTreeNode node = this;
+        while (!node.isLeaf()) {
+            node = node.children.get(node.childIndex(password));
+        }
+
+        return node;
+    }
+
+    /**
+     * Splits the child at the specified index (knowing it's full) to 2 nodes.
+     * A leaf keeps its first t-1 keys and the new leaf gets the other t, and the first key of the
+     * new leaf is copied to this node. An inner node keeps its first t-1 keys, the new node gets its
+     * last t-1 keys and the key between them is moved to this node.
+     * @param i The index of the child
+     */
+    void splitChild(int i) {
+        BPlusTreeNode child = children.get(i);
+        BPlusTreeNode splitChild = new BPlusTreeNode(t, child.isLeaf());
+
+        String separator;
+        if (child.isLeaf()) {
+            splitChild.keys.takeItemsFrom(child.keys, t - 1);
+            separator = splitChild.keys.getFirst();
+
+            // chain the new leaf right after the child
+            splitChild.next = child.next;
+            child.next = splitChild;
+        }
+        else {
+            splitChild.keys.takeItemsFrom(child.keys, t);
+            splitChild.children.takeItemsFrom(child.children, t);
+            separator = child.keys.removeLast();
+        }
+
+        keys.insertAt(i, separator);
+        children.insertAt(i + 1, splitChild);
+    }
+
+    /**
+     * Inserts a key to the subtree rooted at this node (knowing this node is not full)
+     * @param password The key
+     * @return Whether the key was inserted (it wasn't in the tree already)
+     */
+    boolean insertNonFull(String password) {
+        BPlusTreeNode node = this;
+        while (!node.isLeaf()) {
+            int i = node.childIndex(password);
+
+            // we need to split the child if it is full
+            if (node.children.get(i).isFull()) {
+                node.splitChild(i);
+                if (password.compareTo(node.keys.get(i)) >= 0) {
+                    i++;
+                }
+            }
+
+            node = node.children.get(i);
+        }
+
+        int i = node.lowerBound(password);
+        boolean found = i < node.size() && password.equals(node.keys.get(i));
+        if (!found) {
+            node.keys.insertAt(i, password);
+        }
+
+        return !found;
+    }
+
+    /**
+     * Deletes a key from the subtree rooted at this node.
+     * A child which underflows is fixed by this node on the way back up.
+     * @param password The key
+     * @return Whether the key was deleted (it was in the tree)
+     */
+    boolean delete(String password) {
+        if (isLeaf()) {
+            int i = lowerBound(password);
+            boolean found = i < size() && password.equals(keys.get(i));
+            if (found) {
+                keys.removeAt(i);
+            }
+
+            return found;
+        }
+
+        int i = childIndex(password);
+        boolean deleted = children.get(i).delete(password);
+        if (children.get(i).isUnderflowed()) {
+            fixChild(i);
+        }
+
+        return deleted;
+    }
+
+    /**
+     * Fixes the child at the specified index which holds one key less than the minimum,
+     * by taking a key from one of its siblings or by merging it with one of them
+     * @param i The child index
+     */
+    private void fixChild(int i) {
+        if (children.hasLeft(i) && children.get(i - 1).canLend()) {
+            shiftRight(i);
+        }
+        else if (children.hasRight(i) && children.get(i + 1).canLend()) {
+            shiftLeft(i);
+        }
+        else if (children.hasLeft(i)) {
+            merge(i - 1);
+        }
+        else {
+            merge(i);
+        }
+    }
+
+    /**
+     * Moves the last key (and child) of the left sibling of the child at specified index to the child
+     * @param i The child index
+     */
+    private void shiftRight(int i) {
+        BPlusTreeNode child = children.get(i);
+        BPlusTreeNode leftSibling = children.get(i - 1);
+        if (child.isLeaf()) {
+            child.keys.insertFirst(leftSibling.keys.removeLast());
+            keys.set(i - 1, child.keys.getFirst());
+        }
+        else {
+            child.keys.insertFirst(keys.get(i - 1));
+            child.children.insertFirst(leftSibling.children.removeLast());
+            keys.set(i - 1, leftSibling.keys.removeLast());
+        }
+    }
+
+    /**
+     * Moves the first key (and child) of the right sibling of the child at specified index to the child
+     * @param i The child index
+     */
+    private void shiftLeft(int i) {
+        BPlusTreeNode child = children.get(i);
+        BPlusTreeNode rightSibling = children.get(i + 1);
+        if (child.isLeaf()) {
+            child.keys.insertLast(rightSibling.keys.removeFirst());
+            keys.set(i, rightSibling.keys.getFirst());
+        }
+        else {
+            child.keys.insertLast(keys.get(i));
+            child.children.insertLast(rightSibling.children.removeFirst());
+            keys.set(i, rightSibling.keys.removeFirst());
+        }
+    }
+
+    /**
+     * Merges the child at the specified index with its right sibling
+     * @param i The child index
+     */
+    private void merge(int i) {
+        BPlusTreeNode leftChild = children.get(i);
+        BPlusTreeNode rightChild = children.removeAt(i + 1);
+        String separator = keys.removeAt(i);
+        if (leftChild.isLeaf()) {
+            leftChild.next = rightChild.next;
+        }
+        else {
+            // the separator goes back down between the children of both nodes
+            leftChild.keys.insertLast(separator);
+            leftChild.children.takeItemsFrom(rightChild.children, 0);
+        }
+
+        leftChild.keys.takeItemsFrom(rightChild.keys, 0);
+    }
+}
@@ -1,13 +1,18 @@
+import java.util.Arrays;
+
 public class BTree {
+    private final int t;
     private BTreeNode root;
 
     public BTree(String t) {
         try {
-            root = new BTreeNode(Integer.parseInt(t), true);
+            this.t = Integer.parseInt(t);
         }
         catch (NumberFormatException ex) {
             throw new RuntimeException("t is not a number", ex);
         }
+
+        root = new BTreeNode(this.t, true);
     }
 
     public void insert(String password) {
@@ -18,6 +23,26 @@ public class BTree {
         return root.search(password.toLowerCase());
     }
 
+    /**
+     * Returns whether the password is in the tree.
+     * Unlike search, it doesn't allocate anything: an ascii password is compared as if it was lower case
+     * instead of making a lower case copy of it.
+     * @param password The password
+     */
+    public boolean contains(String password) {
+        return isAscii(password) ? root.contains(password, true) : root.contains(password.toLowerCase(), false);
+    }
+
+    static boolean isAscii(String password) {
+        for (int i = 0; i < password.length(); i++) {
+            if (password.charAt(i) > 0x7f) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     public void delete(String password) {
         rootDelete(password.toLowerCase());
     }
@@ -67,8 +92,89 @@ public class BTree {
         Utils.iterateFileLines(filePath, password -> this.insert(password));
     }
 
+    /**
+     * Creates the tree from all of the passwords in the file at once (bulk loading),
+     * instead of inserting them one by one. The passwords are sorted, and then the leaves are
+     * filled with them from left to right and each level above is built from the keys
+     * separating the nodes of the level below it, which takes a linear pass after the sort.
+     * @param filePath The path to the file containing the passwords as lines
+     * @param sorted Whether the passwords in the file are sorted already (after lower casing them)
+     * @param fillFactor The fraction of the maximum amount of keys to put in each node, in (0, 1].
+     * Nodes are never filled with less than the minimum amount of keys.
+     */
+    public void createFullTree(String filePath, boolean sorted, double fillFactor) {
+        if (!root.isEmpty()) {
+            throw new RuntimeException("the tree is not empty.");
+        }
+        if (!(fillFactor > 0 && fillFactor <= 1)) {
+            throw new RuntimeException("fillFactor must be in (0, 1].");
+        }
+
+        String[] passwords = Utils.readFileLines(filePath);
+        for (int i = 0; i < passwords.length; i++) {
+            passwords[i] = passwords[i].toLowerCase();
+            if (sorted && i > 0 && passwords[i - 1].compareTo(passwords[i]) > 0) {
+                throw new RuntimeException("the passwords are not sorted.");
+            }
+        }
+
+        if (!sorted) {
+            Arrays.sort(passwords);
+        }
+
+        int maxKeys = 2 * t - 1;
+        int nodeKeys = Math.max(Math.min((int)Math.round(fillFactor * maxKeys), maxKeys), t - 1);
+
+        // build the levels from the leaves up, until a level has a single node which is the root
+        String[] keys = passwords;
+        BTreeNode[] children = null;
+        while (true) {
+            int nodes = levelNodesAmount(keys.length, nodeKeys);
+            BTreeNode[] level = new BTreeNode[nodes];
+            String[] separators = new String[nodes - 1];
+
+            // the keys which aren't separators are split as evenly as possible between the nodes
+            int nodeSize = (keys.length - separators.length) / nodes;
+            int biggerNodes = (keys.length - separators.length) % nodes;
+            int keyIndex = 0;
+            for (int i = 0; i < nodes; i++) {
+                int size = i < biggerNodes ? nodeSize + 1 : nodeSize;
+                level[i] = BTreeNode.createLevelNode(t, keys, keyIndex, size, children, keyIndex);
+                keyIndex += size;
+                if (i < separators.length) {
+                    separators[i] = keys[keyIndex++];
+                }
+            }
+
+            if (nodes == 1) {
+                root = level[0];
+                root.root = true;
+                break;
+            }
+
+            keys = separators;
+            children = level;
+        }
+    }
+
+    /**
+     * Returns the amount of nodes a level of the tree built from the bottom up should have
+     * @param keysAmount The amount of keys of the level, including the keys separating its nodes
+     * @param nodeKeys The amount of keys to put in each node
+     */
+    private int levelNodesAmount(int keysAmount, int nodeKeys) {
+        int nodes = Math.max((keysAmount + nodeKeys + 1) / (nodeKeys + 1), 1);
+
+        // a node (which isn't the root) must not have less than t-1 keys
+        while (nodes > 1 && (keysAmount - (nodes - 1)) / nodes < t - 1) {
+            nodes--;
+        }
+
+        return nodes;
+    }
+
     public String getSearchTime(String filePath) {
-        return Utils.getSearchTime(filePath, password -> search(password));
+        return Utils.getSearchTime(filePath, password -> contains(password));
     }
 
     public void deleteKeysFromTree(String filePath) {
@@ -71,21 +71,45 @@ public class BTreeNode {
     }
 
     /**
-     * Searches this node for the specified password
+     * Searches the subtree rooted at this node for the specified password
      * @param password The password to look for
      */
     public NodeIndexPair search(String password) {
-        FoundIndexPair searchResult = localSearch(password);
-        if (searchResult.found()) {
-            return new NodeIndexPair(this, searchResult.index());
-        }
-        // we haven't found, nowhere else to look for the key
-        else if (isLeaf()) {
-            return null;
+        BTreeNode node = this;
+        while (true) {
+            int searchResult = node.localSearch(password, false);
+            if (found(searchResult)) {
+                return new NodeIndexPair(node, searchResult);
+            }
+            // we haven't found, nowhere else to look for the key
+            else if (node.isLeaf()) {
+                return null;
+            }
+
+            // we haven't found, look for the key in the child
+            node = node.children.get(index(searchResult));
         }
-        // we haven't found, look for the key in the child
-        else {
-            return children.get(searchResult.index()).search(password);
+    }
+
+    /**
+     * Returns whether the specified password is in the subtree rooted at this node.
+     * Unlike search, it doesn't allocate anything.
+     * @param password The password to look for
+     * @param ignoreAsciiCase Whether to compare the password as if its ascii letters were lower case
+     * (the keys are lower case)
+     */
+    public boolean contains(String password, boolean ignoreAsciiCase) {
+        BTreeNode node = this;
+        while (true) {
+            int searchResult = node.localSearch(password, ignoreAsciiCase);
+            if (found(searchResult)) {
+                return true;
+            }
+            else if (node.isLeaf()) {
+                return false;
+            }
+
+            node = node.children.get(index(searchResult));
         }
     }
 
@@ -189,21 +213,87 @@ public class BTreeNode {
     /**
      * Search only this node for the given key (without diving down to the children)
      * @param password The key to look for
-     * @return An object which holds whether the key was found in this node and
-     * the the first index of from the left which is bigger than the given key
+     * @return The first index from the left whose key is not smaller than the given key,
+     * if the key in that index is the given key. Otherwise -(the index + 1).
      */
-    private FoundIndexPair localSearch(String password) {
-        int i = 0;
-        int compareResult = 0;
+    private int localSearch(String password) {
+        return localSearch(password, false);
+    }
 
-        // find the first index such that the key is smaller than the key in that index
-        while (i < size() && (compareResult = compareWithKeyAt(password, i)) > 0)
-            i++;
+    /**
+     * Search only this node for the given key (without diving down to the children),
+     * with a binary search over the keys
+     * @param password The key to look for
+     * @param ignoreAsciiCase Whether to compare the key as if its ascii letters were lower case
+     * @return The first index from the left whose key is not smaller than the given key,
+     * if the key in that index is the given key. Otherwise -(the index + 1).
+     */
+    private int localSearch(String password, boolean ignoreAsciiCase) {
+        int low = 0;
+        int high = size();
+        int compareResult = -1;
+
+        // find the first index such that the key is not bigger than the key in that index
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int middleCompareResult = ignoreAsciiCase ?
+                                      compareIgnoreAsciiCase(password, keys.get(middle)) :
+                                      compareWithKeyAt(password, middle);
+            if (middleCompareResult > 0) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+                compareResult = middleCompareResult;
+            }
+        }
+
+        // the last compare which moved the high bound was with the key at that index,
+        // if it is 0 then we found it
+        return compareResult == 0 ? low : -(low + 1);
+    }
 
-        // if we're still in bounds of this node the last compare
-        // result is 0, then we found it
-        boolean found = i < size() & compareResult == 0;
-        return new FoundIndexPair(found, i);
+    /**
+     * Returns whether a result of a local search is of a found key
+     * @param searchResult The result of the local search
+     */
+    private static boolean found(int searchResult) {
+        return searchResult >= 0;
+    }
+
+    /**
+     * Returns the index of a result of a local search, the first index from the left
+     * whose key is not smaller than the key searched for
+     * @param searchResult The result of the local search
+     */
+    private static int index(int searchResult) {
+        return searchResult >= 0 ? searchResult : -(searchResult + 1);
+    }
+
+    /**
+     * Creates a node of a level of a tree which is built from the bottom up (bulk loading)
+     * @param t The t of the tree
+     * @param keys The keys of the level, sorted
+     * @param keysStart The index of the first key of the node
+     * @param size The amount of keys of the node
+     * @param children The children of the level (the nodes of the level below), null for leaves
+     * @param childrenStart The index of the first child of the node
+     */
+    static BTreeNode createLevelNode(int t, String[] keys, int keysStart, int size,
+                                     BTreeNode[] children, int childrenStart) {
+        BTreeNode node = new BTreeNode(t);
+        node.leaf = children == null;
+        for (int i = 0; i < size; i++) {
+            node.keys.insertLast(keys[keysStart + i]);
+        }
+        if (!node.isLeaf()) {
+            for (int i = 0; i <= size; i++) {
+                node.children.insertLast(children[childrenStart + i]);
+            }
+        }
+
+        node.n = size;
+        return node;
     }
 
     BTreeNode createRootNode() {
@@ -260,7 +350,7 @@ public class BTreeNode {
      * @param password The password to insert
      */
     private void insertItemToSubtree(String password) {
-        int i = localSearch(password).index();
+        int i = index(localSearch(password));
         insertItemToChild(password, i);
 
     }
@@ -342,9 +432,9 @@ public class BTreeNode {
      * @param password The password to delete
      */
     void deleteNotMinimumKeys(String password) {
-        FoundIndexPair searchResult = localSearch(password);
-        int i = searchResult.index();
-        if (searchResult.found()) {
+        int searchResult = localSearch(password);
+        int i = index(searchResult);
+        if (found(searchResult)) {
             deleteNotMinimumKeysInThis(password, i);
         }
         // password < keys[i] | i == n
@@ -550,6 +640,28 @@ public class BTreeNode {
         return password1.compareTo(password2);
     }
 
+    /**
+     * Compares two keys like compare, as if the ascii letters of the first key were lower case
+     * @param password1 The first key, which must be ascii
+     * @param password2 The second key
+     */
+    static int compareIgnoreAsciiCase(String password1, String password2) {
+        int length = Math.min(password1.length(), password2.length());
+        for (int i = 0; i < length; i++) {
+            char c1 = password1.charAt(i);
+            if (c1 >= 'A' && c1 <= 'Z') {
+                c1 += 'a' - 'A';
+            }
+
+            char c2 = password2.charAt(i);
+            if (c1 != c2) {
+                return c1 - c2;
+            }
+        }
+
+        return password1.length() - password2.length();
+    }
+
     /**
      * Appends the string representation of the subtree rooted at this node
      * to the specified string builder starting at the specified depth
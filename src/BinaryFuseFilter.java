@@ -0,0 +1,244 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A static filter (a binary fuse filter) built once from all of the passwords,
+ * for when the passwords are only queried after they are loaded.
+ * Each password has 3 slots in an array of 8 bit fingerprints, and the filter is built so the xor
+ * of the 3 slots is the fingerprint of the password. A lookup therefore reads exactly 3 bytes.
+ * It takes about 9 bits per password, with a false positive rate of about 1/256 (~0.39%).
+ * The 3 slots of a password are in 3 consecutive segments of the array, which lets the array be
+ * only about 1.13 times the amount of passwords (a xor filter needs 1.23 times).
+ */
+public class BinaryFuseFilter {
+    private static final int ARITY = 3;
+    private static final int MAX_SEGMENT_LENGTH = 1 << 18;
+
+    /**
+     * How many times we try to build the filter (with a different seed each time)
+     * until we give up, the build succeeds on the first few tries with a very high probability
+     */
+    private static final int MAX_BUILD_TRIES = 100;
+
+    private final PasswordHashFunction keyHashFunction;
+    private final byte[] fingerprints;
+    private final int segmentLength;
+    private final int segmentLengthMask;
+    private final int segmentCountLength;
+    private long seed;
+
+    /**
+     * Initializes a new filter of the passwords in the file
+     * @param filePath The path of the file of the passwords
+     */
+    public BinaryFuseFilter(String filePath) {
+        this(filePath, new MixPasswordHashFunction(0));
+    }
+
+    /**
+     * Initializes a new filter of the passwords in the file
+     * @param filePath The path of the file of the passwords
+     * @param keyHashFunction The hash function which converts the passwords to keys,
+     * passwords with the same key are considered the same password so it should have 64 good bits
+     */
+    public BinaryFuseFilter(String filePath, PasswordHashFunction keyHashFunction) {
+        if (keyHashFunction == null) {
+            throw new RuntimeException("keyHashFunction is null.");
+        }
+
+        this.keyHashFunction = keyHashFunction;
+        // the build fails on duplicate keys, a key which is in 3 slots twice is in no slot at all
+        long[] keys = Utils.readUniqueKeys(filePath, keyHashFunction);
+        int size = keys.length;
+
+        this.segmentLength = size == 0 ? 4 : Math.min(calculateSegmentLength(size), MAX_SEGMENT_LENGTH);
+        this.segmentLengthMask = this.segmentLength - 1;
+        double sizeFactor = size <= 1 ? 0 : calculateSizeFactor(size);
+        int capacity = (int)Math.round(size * sizeFactor);
+        int segmentCount = (capacity + this.segmentLength - 1) / this.segmentLength - (ARITY - 1);
+        segmentCount = Math.max(segmentCount, 1);
+        this.segmentCountLength = segmentCount * this.segmentLength;
+        this.fingerprints = new byte[(segmentCount + ARITY - 1) * this.segmentLength];
+
+        this.build(keys);
+    }
+
+    private static int calculateSegmentLength(int size) {
+        return 1 << (int)Math.floor(Math.log(size) / Math.log(3.33) + 2.25);
+    }
+
+    private static double calculateSizeFactor(int size) {
+        return Math.max(1.125, 0.875 + 0.25 * Math.log(1000000) / Math.log(size));
+    }
+
+    /**
+     * Builds the filter: finds an order of the keys in which each key has a slot
+     * none of the following keys use, and then assigns the fingerprints in the reverse order
+     * so the slot of each key makes the xor of its 3 slots its fingerprint.
+     * @param keys The keys, without duplicates
+     */
+    private void build(long[] keys) {
+        int size = keys.length;
+        int length = this.fingerprints.length;
+
+        // for each slot: the amount of keys which use it (times 4), the xor of which of their
+        // 3 slots it is (in the low 2 bits), and the xor of their hashes. a slot used by 1 key
+        // has the hash of the key, and which of the 3 slots of the key it is.
+        int[] slotCounts = new int[length];
+        long[] slotHashes = new long[length];
+        int[] aloneSlots = new int[length];
+        long[] orderedHashes = new long[size];
+        byte[] orderedSlots = new byte[size];
+        int[] slots = new int[ARITY];
+
+        int ordered = 0;
+        this.seed = 0;
+        for (int tries = 0; ordered < size; tries++) {
+            if (tries == MAX_BUILD_TRIES) {
+                throw new RuntimeException("failed to build the filter.");
+            }
+
+            this.seed = Utils.mix(this.seed + tries + 1);
+            Arrays.fill(slotCounts, 0);
+            Arrays.fill(slotHashes, 0);
+            for (long key : keys) {
+                long hash = this.hash(key);
+                this.slots(hash, slots);
+                for (int i = 0; i < ARITY; i++) {
+                    slotCounts[slots[i]] = (slotCounts[slots[i]] + 4) ^ i;
+                    slotHashes[slots[i]] ^= hash;
+                }
+            }
+
+            int aloneSize = 0;
+            for (int i = 0; i < length; i++) {
+                if (slotCounts[i] >> 2 == 1) {
+                    aloneSlots[aloneSize++] = i;
+                }
+            }
+
+            // remove the keys which have a slot of their own one by one, until no key is left
+            ordered = 0;
+            while (aloneSize > 0) {
+                int slot = aloneSlots[--aloneSize];
+                if (slotCounts[slot] >> 2 != 1) {
+                    // another key was removed from the slot since it was added
+                    continue;
+                }
+
+                long hash = slotHashes[slot];
+                int found = slotCounts[slot] & 3;
+                orderedHashes[ordered] = hash;
+                orderedSlots[ordered] = (byte)found;
+                ordered++;
+                slotCounts[slot] = 0;
+
+                this.slots(hash, slots);
+                for (int i = 0; i < ARITY; i++) {
+                    if (i != found) {
+                        int other = slots[i];
+                        slotCounts[other] = (slotCounts[other] - 4) ^ i;
+                        slotHashes[other] ^= hash;
+                        if (slotCounts[other] >> 2 == 1) {
+                            aloneSlots[aloneSize++] = other;
+                        }
+                    }
+                }
+            }
+        }
+
+        for (int i = size - 1; i >= 0; i--) {
+            long hash = orderedHashes[i];
+            this.slots(hash, slots);
+            int found = orderedSlots[i];
+            int xor = fingerprint(hash);
+            for (int j = 0; j < ARITY; j++) {
+                if (j != found) {
+                    xor ^= this.fingerprints[slots[j]];
+                }
+            }
+
+            this.fingerprints[slots[found]] = (byte)xor;
+        }
+    }
+
+    /**
+     * Returns whether the password is in the filter
+     * @param password The password
+     */
+    public boolean contains(String password) {
+        long hash = this.hash(this.keyHashFunction.hash(password));
+        int slot0 = this.slot0(hash);
+        int slot1 = this.slot1(hash, slot0);
+        int slot2 = this.slot2(hash, slot0);
+        int xor = this.fingerprints[slot0] ^ this.fingerprints[slot1] ^ this.fingerprints[slot2];
+        return (byte)xor == (byte)fingerprint(hash);
+    }
+
+    public String getRejectedPasswordsAmount(String filePath) {
+        return Utils.consumeFileReader(filePath, reader -> getRejectedPasswordsAmount(reader)).toString();
+    }
+
+    /**
+     * Returns the amount of passwords rejected by this filter
+     * @param reader The reader of the file
+     */
+    private int getRejectedPasswordsAmount(BufferedReader reader) throws IOException {
+        int badPasswords = 0;
+
+        String password;
+        while ((password = reader.readLine()) != null) {
+            if (this.contains(password)) {
+                badPasswords++;
+            }
+        }
+
+        return badPasswords;
+    }
+
+    /**
+     * Returns the amount of bits the filter takes
+     */
+    public long getSizeInBits() {
+        return (long)this.fingerprints.length * Byte.SIZE;
+    }
+
+    private long hash(long key) {
+        return Utils.mix(key + this.seed);
+    }
+
+    private static int fingerprint(long hash) {
+        return (int)(hash ^ (hash >>> 32));
+    }
+
+    /**
+     * Puts the 3 slots of the hash in the array
+     * @param hash The hash
+     * @param slots The array, of length 3
+     */
+    private void slots(long hash, int[] slots) {
+        int slot0 = this.slot0(hash);
+        slots[0] = slot0;
+        slots[1] = this.slot1(hash, slot0);
+        slots[2] = this.slot2(hash, slot0);
+    }
+
+    /**
+     * Returns the first slot of the hash, in one of the segments which aren't the last 2.
+     * The slots of the other 2 are in the 2 segments after it.
+     * @param hash The hash
+     */
+    private int slot0(long hash) {
+        // multiply-shift of the high 32 bits, the other slots take the low bits
+        return (int)(((hash >>> 32) * this.segmentCountLength) >>> 32);
+    }
+
+    private int slot1(long hash, int slot0) {
+        return (slot0 + this.segmentLength) ^ (int)((hash >>> 18) & this.segmentLengthMask);
+    }
+
+    private int slot2(long hash, int slot0) {
+        return (slot0 + 2 * this.segmentLength) ^ (int)(hash & this.segmentLengthMask);
+    }
+}
@@ -1,10 +1,52 @@
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 
 public class BloomFilter {
+    /**
+     * The size of a block in blocked mode, a 64 bytes cache line
+     */
+    private static final int BLOCK_BITS = 64 * 8;
+
+    /**
+     * 2^32 / golden ratio, used to spread the keys over the blocks
+     */
+    private static final int GOLDEN_RATIO = 0x9e3779b9;
+
+    /**
+     * The amount of passwords checked together when checking a file
+     */
+    private static final int BATCH_SIZE = 1024;
+
+    /**
+     * The first int of a snapshot file ("BLMF")
+     */
+    private static final int SNAPSHOT_MAGIC = 0x424c4d46;
+    private static final int SNAPSHOT_VERSION = 2;
+
     private int m1;
-    private BitArray bitArray;
-    private LinkedList<HashFunction> hashFunctions;
+    private AbstractBitArray bitArray;
+    private ProbeStrategy probeStrategy;
+
+    /**
+     * Converts the passwords to the keys the probes are derived from
+     */
+    private PasswordHashFunction keyHashFunction;
+
+    /**
+     * Whether all of the probes of a key land in a single block
+     */
+    private final boolean blocked;
+    private int blockBits;
+    private int blocks;
 
     /**
      * Initializes a new bloom filter
@@ -12,80 +54,342 @@ public class BloomFilter {
      * @param filePath The file path to read hash functions from
      */
     public BloomFilter(String m1, String filePath) {
+        this(m1, filePath, false);
+    }
+
+    /**
+     * Initializes a new bloom filter
+     * @param m1 The size of the bloom filter in bits
+     * @param filePath The file path to read hash functions from
+     * @param blocked Whether to use blocked mode, in which one hash of the key selects
+     * a block of a cache line and all of the hash functions probe inside that block only.
+     * A lookup then costs at most one cache miss, in exchange for a somewhat higher
+     * false positive rate (which is reported by {@link #getFalsePositivePercentage})
+     */
+    public BloomFilter(String m1, String filePath, boolean blocked) {
+        this(m1, filePath, blocked, new HornerPasswordHashFunction());
+    }
+
+    /**
+     * Initializes a new bloom filter
+     * @param m1 The size of the bloom filter in bits
+     * @param filePath The file path to read hash functions from
+     * @param blocked Whether to use blocked mode (see {@link #BloomFilter(String, String, boolean)})
+     * @param keyHashFunction The hash function which converts the passwords to keys
+     * (horner's rule modulo p in the other constructors)
+     */
+    public BloomFilter(String m1, String filePath, boolean blocked, PasswordHashFunction keyHashFunction) {
+        this(m1, blocked, keyHashFunction);
         if (filePath == null || filePath.equals("")) {
             throw new RuntimeException("hashFunctionsFilePath is null or empty.");
         }
 
+        LinkedList<HashFunction> hashFunctions = new LinkedList<>();
+        Utils.iterateFileLines(filePath, line -> hashFunctions.addLast(this.parseHashFunctionLine(line)));
+        this.probeStrategy = new HashFunctionsProbeStrategy(hashFunctions);
+    }
+
+    /**
+     * Initializes a new bloom filter which derives all of its probes
+     * from two hashes of the key (double hashing)
+     * @param m1 The size of the bloom filter in bits
+     * @param k The amount of probes for each key
+     */
+    public BloomFilter(String m1, int k) {
+        this(m1, k, false);
+    }
+
+    /**
+     * Initializes a new bloom filter which derives all of its probes
+     * from two hashes of the key (double hashing)
+     * @param m1 The size of the bloom filter in bits
+     * @param k The amount of probes for each key
+     * @param blocked Whether to use blocked mode (see {@link #BloomFilter(String, String, boolean)})
+     */
+    public BloomFilter(String m1, int k, boolean blocked) {
+        this(m1, k, blocked, new HornerPasswordHashFunction());
+    }
+
+    /**
+     * Initializes a new bloom filter which derives all of its probes
+     * from two hashes of the key (double hashing)
+     * @param m1 The size of the bloom filter in bits
+     * @param k The amount of probes for each key
+     * @param blocked Whether to use blocked mode (see {@link #BloomFilter(String, String, boolean)})
+     * @param keyHashFunction The hash function which converts the passwords to keys
+     * (horner's rule modulo p in the other constructors)
+     */
+    public BloomFilter(String m1, int k, boolean blocked, PasswordHashFunction keyHashFunction) {
+        this(m1, blocked, keyHashFunction);
+        this.probeStrategy = new DoubleHashingProbeStrategy(this.probeRange(), k);
+    }
+
+    /**
+     * Creates a bloom filter which is sized for the expected amount of passwords,
+     * so its false positive rate doesn't exceed the given rate (as long as no more
+     * passwords than expected are inserted)
+     * @param expectedItems The expected amount of passwords
+     * @param falsePositiveRate The target false positive rate, between 0 and 1 (exclusive)
+     */
+    public static BloomFilter create(int expectedItems, double falsePositiveRate) {
+        return create(expectedItems, falsePositiveRate, new HornerPasswordHashFunction());
+    }
+
+    /**
+     * Creates a bloom filter which is sized for the expected amount of passwords,
+     * so its false positive rate doesn't exceed the given rate (as long as no more
+     * passwords than expected are inserted)
+     * @param expectedItems The expected amount of passwords
+     * @param falsePositiveRate The target false positive rate, between 0 and 1 (exclusive)
+     * @param keyHashFunction The hash function which converts the passwords to keys
+     */
+    public static BloomFilter create(int expectedItems, double falsePositiveRate, PasswordHashFunction keyHashFunction) {
+        if (expectedItems <= 0) {
+            throw new RuntimeException("expectedItems must be a positive number.");
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new RuntimeException("falsePositiveRate must be between 0 and 1.");
+        }
+
+        // m = -n*ln(p) / ln(2)^2 and k = (m/n)*ln(2)
+        double ln2 = Math.log(2);
+        double m1 = Math.ceil(-expectedItems * Math.log(falsePositiveRate) / (ln2 * ln2));
+        if (m1 > Integer.MAX_VALUE) {
+            throw new RuntimeException("the bloom filter is too big.");
+        }
+
+        int k = (int)Math.max(1, Math.round(m1 / expectedItems * ln2));
+        return new BloomFilter(Integer.toString((int)m1), k, false, keyHashFunction);
+    }
+
+    /**
+     * Initializes the bit array of a new bloom filter, without its probe strategy
+     * @param m1 The size of the bloom filter in bits
+     * @param blocked Whether to use blocked mode
+     * @param keyHashFunction The hash function which converts the passwords to keys
+     */
+    private BloomFilter(String m1, boolean blocked, PasswordHashFunction keyHashFunction) {
+        this(parseM1(m1), blocked, keyHashFunction);
+
+        // initialize the bit array
+        this.bitArray = this.createBitArray(this.m1);
+    }
+
+    /**
+     * Initializes the sizes of a new bloom filter, without its bit array and probe strategy
+     * @param m1 The size of the bloom filter in bits
+     * @param blocked Whether to use blocked mode
+     * @param keyHashFunction The hash function which converts the passwords to keys
+     */
+    private BloomFilter(int m1, boolean blocked, PasswordHashFunction keyHashFunction) {
+        if (keyHashFunction == null) {
+            throw new RuntimeException("keyHashFunction is null.");
+        }
+
+        this.m1 = m1;
+        this.blocked = blocked;
+        this.keyHashFunction = keyHashFunction;
+        if (blocked) {
+            // a filter smaller than a block is just one block,
+            // otherwise the bits after the last full block are not used
+            this.blockBits = Math.min(BLOCK_BITS, this.m1);
+            this.blocks = this.blockBits > 0 ? this.m1 / this.blockBits : 0;
+        }
+    }
+
+    private static int parseM1(String m1) {
         // parse the string to an integer
         try {
-            this.m1 = Integer.parseInt(m1);
+            return Integer.parseInt(m1);
         }
         catch (NumberFormatException e) {
             throw new RuntimeException("m1 is not a number is base 10", e);
         }
+    }
 
-        // initialize the bit array
-        this.bitArray = new BitArray(this.m1);
-        this.hashFunctions = new LinkedList<>();
-        Utils.iterateFileLines(filePath, password -> this.parseHashFunctionLine(password));
+    /**
+     * Creates the bit array of the filter
+     * @param length The length of the bit array
+     */
+    protected AbstractBitArray createBitArray(int length) {
+        return new BitArray(length);
     }
 
     /**
-     * Parses a hash function line and adds the hash function to the
-     * hash functions list
+     * Parses a hash function line to a hash function
      * @param line The line to parse
      */
-    private void parseHashFunctionLine(String line) {
+    private HashFunction parseHashFunctionLine(String line) {
         try {
             String[] hashFunctionParams = line.split("_");
             int alpha = Integer.parseInt(hashFunctionParams[0]);
             int beta = Integer.parseInt(hashFunctionParams[1]);
 
-            // add a new hash function to the list with the given alpha, beta and m1
-            HashFunction hashFunction = new HashFunctionImpl(alpha, beta, this.m1);
-            this.hashFunctions.addLast(hashFunction);
+            // create a new hash function with the given alpha, beta and m1
+            return new HashFunctionImpl(alpha, beta, this.probeRange());
         }
         catch (NumberFormatException e) {
             throw new RuntimeException("hash function's alpha or beta is not a number", e);
         }
     }
 
+    /**
+     * Returns the range of the indices the probe strategy should return,
+     * in blocked mode the probes index a single block
+     */
+    private int probeRange() {
+        return this.blocked ? this.blockBits : this.m1;
+    }
+
     public void updateTable(String filePath) {
         Utils.iterateFileLines(filePath, password -> this.insert(password));
     }
 
+    /**
+     * Inserts all of the passwords in the file, splitting the file between the threads.
+     * Each thread builds its own filter from its range of the file without sharing anything,
+     * and in the end the filters are merged to this filter (so this needs a bit array per thread).
+     * @param filePath The path to the file containing the passwords as lines
+     * @param threads The amount of threads
+     */
+    public void updateTable(String filePath, int threads) {
+        final long[] offsets = Utils.splitFileLines(filePath, threads);
+        final BloomFilter[] shards = new BloomFilter[threads];
+        Utils.runInParallel(threads, thread -> {
+            BloomFilter shard = this.createShard();
+            Utils.iterateFileLines(filePath, offsets[thread], offsets[thread + 1], password -> shard.insert(password));
+            shards[thread] = shard;
+        });
+
+        for (BloomFilter shard : shards) {
+            this.union(shard);
+        }
+    }
+
+    /**
+     * Creates an empty bloom filter with the same size and probes as this filter
+     */
+    private BloomFilter createShard() {
+        BloomFilter shard = new BloomFilter(this.m1, this.blocked, this.keyHashFunction);
+        shard.probeStrategy = this.probeStrategy;
+        shard.bitArray = new BitArray(this.m1);
+        return shard;
+    }
+
+    /**
+     * Adds all of the passwords of the other filter to this filter (this = this | other).
+     * Both filters must have the same size, mode and probes.
+     * @param other The other filter
+     */
+    public void union(BloomFilter other) {
+        this.validateCompatible(other);
+        this.bitArray.or(other.bitArray);
+    }
+
+    /**
+     * Keeps only the bits which are on in both filters (this = this & other),
+     * afterwards this filter contains (at least) the passwords which were in both filters.
+     * Both filters must have the same size, mode and probes.
+     * @param other The other filter
+     */
+    public void intersect(BloomFilter other) {
+        this.validateCompatible(other);
+        this.bitArray.and(other.bitArray);
+    }
+
+    private void validateCompatible(BloomFilter other) {
+        if (other == null) {
+            throw new RuntimeException("other is null.");
+        }
+        if (this.m1 != other.m1 || this.blocked != other.blocked ||
+            !this.probeStrategy.equals(other.probeStrategy) ||
+            !this.keyHashFunction.equals(other.keyHashFunction)) {
+            throw new RuntimeException("the bloom filters don't have the same size, probes and keys.");
+        }
+    }
+
     /**
      * Inserts a new password to the bloom filter
      * @param password The password
      */
     public void insert(String password) {
-        // convert the password to an integer using horner's rule
-        int key = Utils.hornerPassword(password);
-        for (HashFunction hashFunction : this.hashFunctions) {
-            int index = hashFunction.hash(key);
-            this.bitArray.set(index, true);
+        // convert the password to a key
+        long key = this.key(password);
+        long base = this.probeStrategy.base(key);
+        int blockStart = this.blockStart(key);
+        int probes = this.probeStrategy.probes();
+        for (int i = 0; i < probes; i++) {
+            int index = blockStart + this.probeStrategy.index(base, i);
+            this.insertIndex(index);
         }
     }
 
+    /**
+     * Marks a bit which was probed for an inserted password
+     * @param index The index of the bit
+     */
+    protected void insertIndex(int index) {
+        this.bitArray.set(index, true);
+    }
+
+    /**
+     * Returns the amount of bits probed for each password
+     */
+    protected int probes() {
+        return this.probeStrategy.probes();
+    }
+
+    /**
+     * Fills the array with the indices of the bits probed for the password
+     * @param password The password
+     * @param indices The array to fill, of length probes()
+     */
+    protected void probe(String password, int[] indices) {
+        long key = this.key(password);
+        long base = this.probeStrategy.base(key);
+        int blockStart = this.blockStart(key);
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = blockStart + this.probeStrategy.index(base, i);
+        }
+    }
+
+    /**
+     * Returns the bit array of the filter
+     */
+    protected AbstractBitArray bitArray() {
+        return this.bitArray;
+    }
+
     /**
      * Returns whether the password is in the bloom filter
      * @param password The password
      */
     public boolean contains(String password) {
-        int key = Utils.hornerPassword(password);
+        long key = this.key(password);
         return this.contains(key);
     }
 
+    /**
+     * Converts the password to the key its probes are derived from
+     * @param password The password
+     */
+    private long key(String password) {
+        return this.keyHashFunction.hash(password);
+    }
+
     /**
      * Returns whether the key (converted number of a password) is in our bad password bloom filter.
      * @param key The key
      */
-    private boolean contains(int key) {
+    private boolean contains(long key) {
         boolean contains = true;
-        for (HashFunction hashFunction : this.hashFunctions) {
-            int index = hashFunction.hash(key);
+        long base = this.probeStrategy.base(key);
+        int blockStart = this.blockStart(key);
+        int probes = this.probeStrategy.probes();
+        for (int i = 0; i < probes; i++) {
+            int index = blockStart + this.probeStrategy.index(base, i);
 
-            // if the bit is not set for one of the hash functions,
+            // if the bit is not set for one of the probes,
             // then the key is not in the bloom filter
             if  (!this.bitArray.get(index)) {
                 contains = false;
@@ -96,7 +400,217 @@ public class BloomFilter {
         return contains;
     }
 
-    public String getFalsePositivePercentage(final HashTable hashtable, String filePath) {
+    /**
+     * Returns which of the passwords are in the bloom filter
+     * @param passwords The passwords
+     * @return A bit array in which bit i is on if and only if passwords[i] is in the bloom filter
+     */
+    public BitArray containsAll(String[] passwords) {
+        if (passwords == null) {
+            throw new RuntimeException("passwords is null.");
+        }
+
+        long[] keys = new long[passwords.length];
+        for (int i = 0; i < passwords.length; i++) {
+            keys[i] = this.key(passwords[i]);
+        }
+
+        return this.containsAll(keys, keys.length);
+    }
+
+    /**
+     * Returns which of the keys (converted numbers of passwords) are in the bloom filter
+     * @param keys The keys, as returned by the key hash function of the filter (all 64 bits of them)
+     * @return A bit array in which bit i is on if and only if keys[i] is in the bloom filter
+     */
+    public BitArray containsAll(long[] keys) {
+        if (keys == null) {
+            throw new RuntimeException("keys is null.");
+        }
+
+        return this.containsAll(keys, keys.length);
+    }
+
+    /**
+     * Returns which of the first keys are in the bloom filter.
+     * All of the probed indices are computed before the bit array is touched,
+     * and then the bits are probed round by round (the i-th probe of every key in each round).
+     * This way the reads of the bits of different keys don't depend on each other
+     * and the memory accesses overlap, instead of waiting for each key in turn.
+     * @param keys The keys
+     * @param count The amount of keys to check, starting from the first key
+     * @return A bit array in which bit i is on if and only if keys[i] is in the bloom filter
+     */
+    private BitArray containsAll(long[] keys, int count) {
+        int probes = this.probeStrategy.probes();
+
+        // the indices of round i are at [i * count, (i + 1) * count)
+        int[] indices = new int[probes * count];
+        for (int j = 0; j < count; j++) {
+            long base = this.probeStrategy.base(keys[j]);
+            int blockStart = this.blockStart(keys[j]);
+            for (int i = 0; i < probes; i++) {
+                indices[i * count + j] = blockStart + this.probeStrategy.index(base, i);
+            }
+        }
+
+        // every key is in the filter until one of its bits is found to be off
+        BitArray contained = new BitArray(count);
+        contained.fill();
+        for (int i = 0; i < probes; i++) {
+            int roundStart = i * count;
+            for (int j = 0; j < count; j++) {
+                if (contained.get(j) && !this.bitArray.get(indices[roundStart + j])) {
+                    contained.set(j, false);
+                }
+            }
+        }
+
+        return contained;
+    }
+
+    /**
+     * Returns the index of the first bit of the block the key's probes land in.
+     * When not in blocked mode, the probes land all over the bit array.
+     * @param key The key
+     */
+    private int blockStart(long key) {
+        int blockStart = 0;
+        if (this.blocked) {
+            // multiplicative hashing and then take the high bits to select
+            // the block (multiply-shift range reduction instead of modulo)
+            long hash = ((int)key * GOLDEN_RATIO) & 0xffffffffL;
+            int block = (int)((hash * this.blocks) >>> 32);
+            blockStart = block * this.blockBits;
+        }
+
+        return blockStart;
+    }
+
+    /**
+     * Returns the fraction of the bits which are on
+     * (out of the bits which can be probed, in blocked mode the bits after the last block aren't)
+     */
+    public double getFillRatio() {
+        int usedBits = this.usedBits();
+        return usedBits > 0 ? (double)this.bitArray.cardinality() / usedBits : 0;
+    }
+
+    /**
+     * Estimates the amount of distinct passwords inserted to the filter from the amount of bits
+     * which are on: n = -(m/k) * ln(1 - X/m), where X is the amount of bits which are on.
+     * @return The estimation, or Long.MAX_VALUE if all of the bits are on
+     */
+    public long getEstimatedItemsAmount() {
+        double usedBits = this.usedBits();
+        double estimate = -usedBits / this.probeStrategy.probes() * Math.log(1 - this.getFillRatio());
+        return Math.round(estimate);
+    }
+
+    /**
+     * Returns the false positive rate expected from the current fill ratio of the filter:
+     * the chance all of the probes of a password which wasn't inserted find a bit which is on,
+     * (X/m)^k. In blocked mode it is an approximation from below, as some blocks are fuller than others.
+     */
+    public double getTheoreticalFalsePositiveRate() {
+        return Math.pow(this.getFillRatio(), this.probeStrategy.probes());
+    }
+
+    /**
+     * Returns the amount of bits which can be probed
+     */
+    private int usedBits() {
+        return this.blocked ? this.blocks * this.blockBits : this.m1;
+    }
+
+    /**
+     * Saves a snapshot of the bloom filter to a file, which can be opened by {@link #load(String)}.
+     * The file starts with a header (m1, the mode, the key hash function and the probe strategy parameters)
+     * followed by the words of the bit array, aligned to 8 bytes.
+     * @param filePath The path of the snapshot file
+     */
+    public void save(String filePath) {
+        if (filePath == null || filePath.equals("")) {
+            throw new RuntimeException("filePath is null or empty.");
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filePath)))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(this.m1);
+            out.writeBoolean(this.blocked);
+            this.keyHashFunction.write(out);
+            this.probeStrategy.write(out);
+
+            // pad the header so the words are aligned
+            while (out.size() % Long.BYTES != 0) {
+                out.writeByte(0);
+            }
+
+            for (int i = 0; i < this.bitArray.wordsLength(); i++) {
+                out.writeLong(this.bitArray.getWord(i));
+            }
+        }
+        catch (IOException e) {
+            throw new RuntimeException("io exception", e);
+        }
+    }
+
+    /**
+     * Opens a snapshot file which was saved by {@link #save(String)}.
+     * The file is memory mapped read-only and the filter reads its bits straight from the mapping,
+     * so nothing is copied or re-hashed, the pages are read on demand.
+     * The returned filter can't be inserted to.
+     * @param filePath The path of the snapshot file
+     */
+    public static BloomFilter load(String filePath) {
+        if (filePath == null || filePath.equals("")) {
+            throw new RuntimeException("filePath is null or empty.");
+        }
+
+        // the mapping stays valid after the channel is closed
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        catch (NoSuchFileException e) {
+            throw new RuntimeException("file not found", e);
+        }
+        catch (IOException e) {
+            throw new RuntimeException("io exception", e);
+        }
+
+        return load(buffer);
+    }
+
+    /**
+     * Initializes a bloom filter from a snapshot
+     * @param buffer The buffer of the snapshot
+     */
+    private static BloomFilter load(ByteBuffer buffer) {
+        if (buffer.remaining() < 3 * Integer.BYTES || buffer.getInt() != SNAPSHOT_MAGIC) {
+            throw new RuntimeException("the file is not a bloom filter snapshot.");
+        }
+        int version = buffer.getInt();
+        if (version != SNAPSHOT_VERSION) {
+            throw new RuntimeException("unsupported bloom filter snapshot version.");
+        }
+
+        int m1 = buffer.getInt();
+        boolean blocked = buffer.get() != 0;
+        PasswordHashFunction keyHashFunction = PasswordHashFunction.read(buffer);
+
+        // read the rest of the header after the sizes are known
+        BloomFilter bloomFilter = new BloomFilter(m1, blocked, keyHashFunction);
+        bloomFilter.probeStrategy = ProbeStrategy.read(buffer, bloomFilter.probeRange());
+
+        // skip the padding
+        int wordsOffset = (buffer.position() + Long.BYTES - 1) / Long.BYTES * Long.BYTES;
+        bloomFilter.bitArray = new MappedBitArray(buffer, wordsOffset, m1);
+        return bloomFilter;
+    }
+
+    public String getFalsePositivePercentage(final PasswordSet hashtable, String filePath) {
         return Utils.consumeFileReader(filePath, reader -> getFalsePositivePercentage(hashtable, reader));
     }
 
@@ -111,11 +625,16 @@ public class BloomFilter {
     private int getRejectedPasswordsAmount(BufferedReader reader) throws IOException {
         int badPasswords = 0;
 
-        String password;
-        while ((password = reader.readLine()) != null) {
-            if (this.contains(password)) {
-                badPasswords++;
+        // check the passwords in batches
+        String[] passwords = new String[BATCH_SIZE];
+        long[] keys = new long[BATCH_SIZE];
+        int count;
+        while ((count = Utils.readLines(reader, passwords)) > 0) {
+            for (int i = 0; i < count; i++) {
+                keys[i] = this.key(passwords[i]);
             }
+
+            badPasswords += this.containsAll(keys, count).cardinality();
         }
 
         return badPasswords;
@@ -126,23 +645,31 @@ public class BloomFilter {
      * @param hashtable The hashtable that contains the bad passwords
      * @param reader The file reader
      */
-    private String getFalsePositivePercentage(HashTable hashtable, BufferedReader reader) throws IOException {
+    private String getFalsePositivePercentage(PasswordSet hashtable, BufferedReader reader) throws IOException {
         int falsePositive = 0;
         int goodPasswords = 0;
 
-        String password;
-        while ((password = reader.readLine()) != null) {
-            int key = Utils.hornerPassword(password);
+        // check the passwords in batches
+        String[] passwords = new String[BATCH_SIZE];
+        long[] keys = new long[BATCH_SIZE];
+        int count;
+        while ((count = Utils.readLines(reader, passwords)) > 0) {
+            for (int i = 0; i < count; i++) {
+                keys[i] = this.key(passwords[i]);
+            }
 
-            // If the key is not in the hashtable, then the password
-            // isn't bad
-            if (!hashtable.contains(key)) {
-                goodPasswords++;
+            BitArray contained = this.containsAll(keys, count);
+            for (int i = 0; i < count; i++) {
+                // If the password is not in the hashtable, then it
+                // isn't bad
+                if (!hashtable.contains(passwords[i])) {
+                    goodPasswords++;
 
-                // however, if it is the bloom filter (when it's not in the hashtable),
-                // then it's a false positive
-                if (this.contains(key)) {
-                    falsePositive++;
+                    // however, if it is the bloom filter (when it's not in the hashtable),
+                    // then it's a false positive
+                    if (contained.get(i)) {
+                        falsePositive++;
+                    }
                 }
             }
         }
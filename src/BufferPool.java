@@ -0,0 +1,278 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * A buffer pool of the pages of a file: up to a fixed amount of pages (frames) are kept in memory,
+ * and when a page which isn't in memory is needed, a page is replaced using the clock algorithm
+ * (the hand goes over the frames, a page which was used since the hand last passed it gets a second chance).
+ * A page which is in use is pinned and isn't replaced, a changed page is written back when it's replaced.
+ */
+class BufferPool implements Closeable {
+    private static final int NO_PAGE = -1;
+    private static final int NO_FRAME = -1;
+
+    private final FileChannel channel;
+    private final int pageSize;
+    private final ByteBuffer[] frames;
+
+    /**
+     * The page in each frame, NO_PAGE for an empty frame
+     */
+    private final int[] framePages;
+    private final int[] pins;
+    private final boolean[] dirty;
+    private final boolean[] referenced;
+
+    /**
+     * The frames of the pages in memory, an open addressing table with linear probing by the page
+     * in each frame (like HashTable, so a pin doesn't box the page). It holds at most a page for each
+     * frame, so it is at most half full and never grows.
+     */
+    private final int[] pageFrames;
+
+    /**
+     * 32 - log2 of the length of the page frames table
+     */
+    private final int shift;
+    private int hand;
+
+    private long pageReads;
+    private long pageWrites;
+
+    /**
+     * @param channel The file of the pages
+     * @param pageSize The size of a page in bytes
+     * @param framesAmount The maximum amount of pages in memory
+     */
+    BufferPool(FileChannel channel, int pageSize, int framesAmount) {
+        this.channel = channel;
+        this.pageSize = pageSize;
+        this.frames = new ByteBuffer[framesAmount];
+        this.framePages = new int[framesAmount];
+        Arrays.fill(this.framePages, NO_PAGE);
+        this.pins = new int[framesAmount];
+        this.dirty = new boolean[framesAmount];
+        this.referenced = new boolean[framesAmount];
+        int length = 2 * HashTable.tableLength(framesAmount);
+        if (length <= 0) {
+            throw new RuntimeException("the buffer pool is too big.");
+        }
+
+        this.pageFrames = new int[length];
+        Arrays.fill(this.pageFrames, NO_FRAME);
+        this.shift = Integer.SIZE - Integer.numberOfTrailingZeros(length);
+        this.hand = 0;
+        this.pageReads = 0;
+        this.pageWrites = 0;
+    }
+
+    /**
+     * Pins the page, reading it from the file if it isn't in memory
+     * @param page The page number
+     * @return The frame of the page
+     */
+    int pin(int page) {
+        int frame = findFrame(page);
+        if (frame == NO_FRAME) {
+            frame = replace(page);
+            read(frame, page);
+        }
+
+        pins[frame]++;
+        referenced[frame] = true;
+        return frame;
+    }
+
+    /**
+     * Pins a page which was never written to the file, without reading it
+     * @param page The page number
+     * @return The frame of the page, which is all zeros
+     */
+    int pinNew(int page) {
+        int frame = findFrame(page);
+        if (frame == NO_FRAME) {
+            frame = replace(page);
+        }
+
+        Arrays.fill(frames[frame].array(), (byte)0);
+        pins[frame]++;
+        referenced[frame] = true;
+        dirty[frame] = true;
+        return frame;
+    }
+
+    /**
+     * Unpins the page in the frame
+     * @param frame The frame
+     * @param changed Whether the page was changed while it was pinned
+     */
+    void unpin(int frame, boolean changed) {
+        pins[frame]--;
+        dirty[frame] |= changed;
+    }
+
+    /**
+     * Returns the buffer of the frame
+     * @param frame The frame
+     */
+    ByteBuffer buffer(int frame) {
+        return frames[frame];
+    }
+
+    public long getPageReads() {
+        return pageReads;
+    }
+
+    public long getPageWrites() {
+        return pageWrites;
+    }
+
+    /**
+     * Writes all of the changed pages to the file
+     */
+    void flush() {
+        for (int frame = 0; frame < frames.length; frame++) {
+            if (dirty[frame]) {
+                write(frame);
+            }
+        }
+    }
+
+    /**
+     * Writes all of the changed pages to the file and closes it
+     */
+    @Override
+    public void close() {
+        flush();
+        try {
+            channel.close();
+        }
+        catch (IOException ex) {
+            throw new RuntimeException("could not close the file.", ex);
+        }
+    }
+
+    /**
+     * Finds a frame for the page with the clock algorithm, and writes the page which was in it if it changed
+     * @param page The page which will be in the frame
+     * @return The frame
+     */
+    private int replace(int page) {
+        // the first round over the frames clears their references, the second must find a frame
+        for (int i = 0; i < 2 * frames.length; i++) {
+            int frame = hand;
+            hand = (hand + 1) % frames.length;
+            if (framePages[frame] == NO_PAGE) {
+                frames[frame] = ByteBuffer.allocate(pageSize);
+            }
+            else if (pins[frame] > 0) {
+                continue;
+            }
+            else if (referenced[frame]) {
+                referenced[frame] = false;
+                continue;
+            }
+            else {
+                if (dirty[frame]) {
+                    write(frame);
+                }
+
+                removeFrame(frame);
+            }
+
+            framePages[frame] = page;
+            addFrame(frame);
+            return frame;
+        }
+
+        throw new RuntimeException("all of the pages of the buffer pool are pinned.");
+    }
+
+    /**
+     * Returns the frame of the page, or NO_FRAME if it isn't in memory
+     * @param page The page
+     */
+    private int findFrame(int page) {
+        int mask = pageFrames.length - 1;
+        for (int i = HashTable.hashFunction(page, shift); ; i = (i + 1) & mask) {
+            int frame = pageFrames[i];
+            if (frame == NO_FRAME || framePages[frame] == page) {
+                return frame;
+            }
+        }
+    }
+
+    /**
+     * Adds the frame to the page frames table, by the page in it
+     * @param frame The frame, which isn't in the table
+     */
+    private void addFrame(int frame) {
+        int mask = pageFrames.length - 1;
+        int i = HashTable.hashFunction(framePages[frame], shift);
+        while (pageFrames[i] != NO_FRAME) {
+            i = (i + 1) & mask;
+        }
+
+        pageFrames[i] = frame;
+    }
+
+    /**
+     * Removes the frame from the page frames table without leaving a tombstone (backward shift deletion)
+     * @param frame The frame, which is in the table by the page still in it
+     */
+    private void removeFrame(int frame) {
+        int mask = pageFrames.length - 1;
+        int hole = HashTable.hashFunction(framePages[frame], shift);
+        while (pageFrames[hole] != frame) {
+            hole = (hole + 1) & mask;
+        }
+
+        for (int i = (hole + 1) & mask; pageFrames[i] != NO_FRAME; i = (i + 1) & mask) {
+            // the frame can fill the hole if the hole is between the hash of its page and its slot
+            int home = HashTable.hashFunction(framePages[pageFrames[i]], shift);
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                pageFrames[hole] = pageFrames[i];
+                hole = i;
+            }
+        }
+
+        pageFrames[hole] = NO_FRAME;
+    }
+
+    private void read(int frame, int page) {
+        ByteBuffer buffer = frames[frame];
+        buffer.clear();
+        try {
+            long position = (long)page * pageSize;
+            while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) >= 0) {
+            }
+        }
+        catch (IOException ex) {
+            throw new RuntimeException("could not read page " + page + ".", ex);
+        }
+
+        // a page at the end of the file which was never written completely
+        Arrays.fill(buffer.array(), buffer.position(), pageSize, (byte)0);
+        pageReads++;
+    }
+
+    private void write(int frame) {
+        ByteBuffer buffer = frames[frame];
+        buffer.clear();
+        try {
+            long position = (long)framePages[frame] * pageSize;
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, position + buffer.position());
+            }
+        }
+        catch (IOException ex) {
+            throw new RuntimeException("could not write page " + framePages[frame] + ".", ex);
+        }
+
+        dirty[frame] = false;
+        pageWrites++;
+    }
+}
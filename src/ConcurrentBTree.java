@@ -0,0 +1,477 @@
+import java.util.ArrayList;
+
+/**
+ * A B-tree of passwords which can be searched by many threads while other threads insert
+ * passwords to it or delete passwords from it (optimistic lock coupling).
+ * Every node has a version, searches don't take any lock: they read the version of each node before
+ * reading the node, and check that the version of the node hasn't changed after reading the version
+ * of the child they continue to, and restart from the root otherwise.
+ * Writers go down the tree the same way, and lock only the nodes they change: the leaf they insert
+ * to or delete from, and a node with the children it splits, merges or moves a key between.
+ * Like BTree, the tree splits full nodes and fixes nodes holding the minimum amount of keys on the
+ * way down, but it does it one node at a time and goes down again from the root after each one.
+ */
+public class ConcurrentBTree {
+    /**
+     * The amount of failed attempts of an operation which are retried right away, before yielding
+     */
+    private static final int SPINS_BEFORE_YIELD = 16;
+
+    private final int t;
+    private volatile ConcurrentBTreeNode root;
+
+    public ConcurrentBTree(String t) {
+        try {
+            this.t = Integer.parseInt(t);
+        }
+        catch (NumberFormatException ex) {
+            throw new RuntimeException("t is not a number", ex);
+        }
+
+        if (this.t < 2) {
+            throw new RuntimeException("t must be at least 2.");
+        }
+
+        root = new ConcurrentBTreeNode(this.t, true);
+    }
+
+    public void insert(String password) {
+        String key = password.toLowerCase();
+        for (int attempt = 1; !tryInsert(key); attempt++) {
+            backoff(attempt);
+        }
+    }
+
+    /**
+     * Returns whether the password is in the tree,
+     * an ascii password is compared as if it was lower case instead of making a lower case copy of it
+     * @param password The password
+     */
+    public boolean contains(String password) {
+        boolean ignoreAsciiCase = BTree.isAscii(password);
+        String key = ignoreAsciiCase ? password : password.toLowerCase();
+        Boolean contains;
+        for (int attempt = 1; (contains = tryContains(key, ignoreAsciiCase)) == null; attempt++) {
+            backoff(attempt);
+        }
+
+        return contains;
+    }
+
+    public void delete(String password) {
+        String key = password.toLowerCase();
+        for (int attempt = 1; tryDelete(key) == null; attempt++) {
+            backoff(attempt);
+        }
+    }
+
+    /**
+     * Waits before an operation is tried again, after an attempt failed because a node on the way
+     * was changed or locked by another thread. The first attempts are retried right away, since the change
+     * is usually done already, and after that the thread yields so the other thread can finish.
+     * @param attempt The amount of attempts which failed
+     */
+    private static void backoff(int attempt) {
+        if (attempt >= SPINS_BEFORE_YIELD) {
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Reads the version of the root, and checks it is still the root after that
+     * (the root is replaced only while it is locked)
+     * @param node The root which was read
+     * @return The version, or RESTART
+     */
+    private long readLockRoot(ConcurrentBTreeNode node) {
+        long version = node.readLock();
+        return node == root ? version : ConcurrentBTreeNode.RESTART;
+    }
+
+    /**
+     * Looks the key up once
+     * @param password The key
+     * @param ignoreAsciiCase Whether to compare the key as if its ascii letters were lower case
+     * @return Whether the key is in the tree, or null if the search has to restart
+     */
+    private Boolean tryContains(String password, boolean ignoreAsciiCase) {
+        ConcurrentBTreeNode node = root;
+        long version = readLockRoot(node);
+        if (version == ConcurrentBTreeNode.RESTART) {
+            return null;
+        }
+
+        while (true) {
+            int searchResult = node.localSearch(password, ignoreAsciiCase);
+            if (searchResult == ConcurrentBTreeNode.INCONSISTENT) {
+                return null;
+            }
+            else if (ConcurrentBTreeNode.found(searchResult) || node.isLeaf()) {
+                return node.validate(version) ? ConcurrentBTreeNode.found(searchResult) : null;
+            }
+
+            ConcurrentBTreeNode child = node.children.get(ConcurrentBTreeNode.index(searchResult));
+            long childVersion = readLockChild(node, version, child);
+            if (childVersion == ConcurrentBTreeNode.RESTART) {
+                return null;
+            }
+
+            node = child;
+            version = childVersion;
+        }
+    }
+
+    /**
+     * Reads the version of the child, and checks that its parent hasn't changed since
+     * its version was read, so the child was its child and the parent's keys which were read are right
+     * @param node The parent
+     * @param version The version of the parent
+     * @param child The child which was read from the parent
+     * @return The version of the child, or RESTART
+     */
+    private static long readLockChild(ConcurrentBTreeNode node, long version, ConcurrentBTreeNode child) {
+        if (child == null || !node.validate(version)) {
+            return ConcurrentBTreeNode.RESTART;
+        }
+
+        long childVersion = child.readLock();
+        return node.validate(version) ? childVersion : ConcurrentBTreeNode.RESTART;
+    }
+
+    /**
+     * Inserts the key to a leaf, the full nodes on the way to it are split
+     * (and the insert goes down again from the root after each split)
+     * @param password The key
+     * @return Whether the key was inserted, otherwise the insert has to restart
+     */
+    private boolean tryInsert(String password) {
+        ConcurrentBTreeNode parent = null;
+        long parentVersion = 0;
+        int parentIndex = 0;
+        ConcurrentBTreeNode node = root;
+        long version = readLockRoot(node);
+        if (version == ConcurrentBTreeNode.RESTART) {
+            return false;
+        }
+
+        while (true) {
+            if (node.isFull()) {
+                boolean split;
+                if (parent == null) {
+                    split = splitRoot(node, version);
+                }
+                else if (split = parent.upgradeToWriteLock(parentVersion)) {
+                    if (split = node.upgradeToWriteLock(version)) {
+                        parent.splitChild(parentIndex);
+                        node.writeUnlock();
+                    }
+
+                    parent.writeUnlock();
+                }
+
+                if (!split) {
+                    return false;
+                }
+
+                // the tree changed, but not because of another thread, so there is no need to wait
+                parent = null;
+                node = root;
+                version = readLockRoot(node);
+                if (version == ConcurrentBTreeNode.RESTART) {
+                    return false;
+                }
+
+                continue;
+            }
+
+            int searchResult = node.localSearch(password, false);
+            if (searchResult == ConcurrentBTreeNode.INCONSISTENT) {
+                return false;
+            }
+
+            int i = ConcurrentBTreeNode.index(searchResult);
+            if (node.isLeaf()) {
+                if (!node.upgradeToWriteLock(version)) {
+                    return false;
+                }
+
+                node.insertKeyAt(i, password);
+                node.writeUnlock();
+                return true;
+            }
+
+            ConcurrentBTreeNode child = node.children.get(i);
+            long childVersion = readLockChild(node, version, child);
+            if (childVersion == ConcurrentBTreeNode.RESTART) {
+                return false;
+            }
+
+            parent = node;
+            parentVersion = version;
+            parentIndex = i;
+            node = child;
+            version = childVersion;
+        }
+    }
+
+    /**
+     * Splits the full root, and makes a new root above it
+     * @param node The root
+     * @param version The version of the root
+     * @return Whether the root was split
+     */
+    private boolean splitRoot(ConcurrentBTreeNode node, long version) {
+        if (!node.upgradeToWriteLock(version)) {
+            return false;
+        }
+
+        ConcurrentBTreeNode newRoot = new ConcurrentBTreeNode(t, false);
+        newRoot.children.set(0, node);
+        newRoot.splitChild(0);
+        root = newRoot;
+        node.writeUnlock();
+        return true;
+    }
+
+    /**
+     * Deletes the key, the nodes holding the minimum amount of keys on the way to it are fixed
+     * (and the delete goes down again from the root after each fix)
+     * @param password The key
+     * @return Whether the key was deleted (it was in the tree), or null if the delete has to restart
+     */
+    private Boolean tryDelete(String password) {
+        ConcurrentBTreeNode parent = null;
+        long parentVersion = 0;
+        int parentIndex = 0;
+        ConcurrentBTreeNode node = root;
+        long version = readLockRoot(node);
+        if (version == ConcurrentBTreeNode.RESTART) {
+            return null;
+        }
+
+        while (true) {
+            if (parent != null && node.needsKey()) {
+                if (!fixChild(parent, parentVersion, parentIndex, node, version)) {
+                    return null;
+                }
+
+                // the tree changed, but not because of another thread, so there is no need to wait
+                parent = null;
+                node = root;
+                version = readLockRoot(node);
+                if (version == ConcurrentBTreeNode.RESTART) {
+                    return null;
+                }
+
+                continue;
+            }
+
+            int searchResult = node.localSearch(password, false);
+            if (searchResult == ConcurrentBTreeNode.INCONSISTENT) {
+                return null;
+            }
+
+            int i = ConcurrentBTreeNode.index(searchResult);
+            if (ConcurrentBTreeNode.found(searchResult)) {
+                if (!node.isLeaf()) {
+                    return replaceWithPredecessor(node, version, i) ? Boolean.TRUE : null;
+                }
+                else if (!node.upgradeToWriteLock(version)) {
+                    return null;
+                }
+
+                node.removeKeyAt(i);
+                node.writeUnlock();
+                return Boolean.TRUE;
+            }
+            else if (node.isLeaf()) {
+                return node.validate(version) ? Boolean.FALSE : null;
+            }
+
+            ConcurrentBTreeNode child = node.children.get(i);
+            long childVersion = readLockChild(node, version, child);
+            if (childVersion == ConcurrentBTreeNode.RESTART) {
+                return null;
+            }
+
+            parent = node;
+            parentVersion = version;
+            parentIndex = i;
+            node = child;
+            version = childVersion;
+        }
+    }
+
+    /**
+     * Replaces the key at the specified index of an inner node with its predecessor,
+     * which is removed from its leaf. All of the nodes from the inner node to the leaf are locked,
+     * so a search which went down that path before the key moved restarts.
+     * @param node The inner node
+     * @param version The version of the inner node
+     * @param i The index of the key
+     * @return Whether the key was replaced, otherwise the delete has to restart
+     */
+    private boolean replaceWithPredecessor(ConcurrentBTreeNode node, long version, int i) {
+        // the predecessor is the last key of the right most leaf of the subtree of the child at the index
+        ArrayList<ConcurrentBTreeNode> path = new ArrayList<>();
+        ArrayList<Long> versions = new ArrayList<>();
+        path.add(node);
+        versions.add(version);
+        int childIndex = i;
+        while (true) {
+            ConcurrentBTreeNode parent = path.get(path.size() - 1);
+            long parentVersion = versions.get(versions.size() - 1);
+            ConcurrentBTreeNode child = parent.children.get(childIndex);
+            long childVersion = readLockChild(parent, parentVersion, child);
+            if (childVersion == ConcurrentBTreeNode.RESTART) {
+                return false;
+            }
+
+            // a node on the way must not hold the minimum amount of keys, like on the way to any key
+            if (child.needsKey()) {
+                fixChild(parent, parentVersion, childIndex, child, childVersion);
+                return false;
+            }
+
+            path.add(child);
+            versions.add(childVersion);
+            if (child.isLeaf()) {
+                break;
+            }
+
+            childIndex = child.size();
+        }
+
+        int locked = 0;
+        while (locked < path.size() && path.get(locked).upgradeToWriteLock(versions.get(locked))) {
+            locked++;
+        }
+
+        if (locked == path.size()) {
+            ConcurrentBTreeNode leaf = path.get(path.size() - 1);
+            node.keys.set(i, leaf.removeKeyAt(leaf.size() - 1));
+        }
+
+        for (int j = 0; j < locked; j++) {
+            path.get(j).writeUnlock();
+        }
+
+        return locked == path.size();
+    }
+
+    /**
+     * Fixes the child at the specified index which holds the minimum amount of keys, by taking a key
+     * from one of its siblings or by merging it with one of them. The parent doesn't hold the minimum
+     * amount of keys (or it is the root), which was checked on the way down.
+     * @param parent The parent
+     * @param parentVersion The version of the parent
+     * @param i The child index
+     * @param child The child
+     * @param version The version of the child
+     * @return Whether the child was fixed
+     */
+    private boolean fixChild(ConcurrentBTreeNode parent, long parentVersion, int i,
+                             ConcurrentBTreeNode child, long version) {
+        if (!parent.upgradeToWriteLock(parentVersion)) {
+            return false;
+        }
+        if (!child.upgradeToWriteLock(version)) {
+            parent.writeUnlock();
+            return false;
+        }
+
+        // the siblings can be read safely from the locked parent
+        ConcurrentBTreeNode leftSibling = i > 0 ? parent.children.get(i - 1) : null;
+        ConcurrentBTreeNode rightSibling = i < parent.size() ? parent.children.get(i + 1) : null;
+        boolean leftLocked = leftSibling != null && leftSibling.tryWriteLock();
+        boolean rightLocked = false;
+        ConcurrentBTreeNode obsolete = null;
+        if (leftLocked && !leftSibling.needsKey()) {
+            parent.shiftRight(i);
+        }
+        else if (rightSibling != null && (rightLocked = rightSibling.tryWriteLock()) && !rightSibling.needsKey()) {
+            parent.shiftLeft(i);
+        }
+        else if (leftLocked) {
+            parent.merge(i - 1);
+            obsolete = child;
+        }
+        else if (rightLocked) {
+            parent.merge(i);
+            obsolete = rightSibling;
+        }
+        // otherwise both siblings are locked by other threads, the child is left as it is and the delete
+        // restarts after yielding to them (a lock is never waited for while holding other locks)
+        boolean fixed = leftLocked || rightLocked;
+
+        ConcurrentBTreeNode merged = obsolete == child ? leftSibling : child;
+        if (leftLocked && leftSibling != obsolete) {
+            leftSibling.writeUnlock();
+        }
+        if (rightLocked && rightSibling != obsolete) {
+            rightSibling.writeUnlock();
+        }
+        if (child != obsolete) {
+            child.writeUnlock();
+        }
+        if (obsolete != null) {
+            obsolete.writeUnlockObsolete();
+        }
+
+        // the root lost its last key, the merged child is the new root
+        if (parent == root && parent.size() == 0) {
+            root = merged;
+            parent.writeUnlockObsolete();
+        }
+        else {
+            parent.writeUnlock();
+        }
+
+        return fixed;
+    }
+
+    /**
+     * Returns the string representation of the tree in the format of BTree,
+     * should be called only while no thread changes the tree
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        root.appendString(sb, 0);
+        return sb.toString();
+    }
+
+    public void createFullTree(String filePath) {
+        Utils.iterateFileLines(filePath, password -> this.insert(password));
+    }
+
+    /**
+     * Inserts all of the passwords in the file, splitting the file between the threads
+     * @param filePath The path to the file containing the passwords as lines
+     * @param threads The amount of threads
+     */
+    public void updateTree(String filePath, int threads) {
+        final long[] offsets = Utils.splitFileLines(filePath, threads);
+        Utils.runInParallel(threads, thread ->
+            Utils.iterateFileLines(filePath, offsets[thread], offsets[thread + 1], password -> this.insert(password)));
+    }
+
+    public String getSearchTime(String filePath) {
+        return Utils.getSearchTime(filePath, password -> contains(password));
+    }
+
+    public void deleteKeysFromTree(String filePath) {
+        Utils.iterateFileLines(filePath, password -> this.delete(password));
+    }
+
+    /**
+     * Deletes all of the passwords in the file, splitting the file between the threads
+     * @param filePath The path to the file containing the passwords as lines
+     * @param threads The amount of threads
+     */
+    public void deleteKeysFromTree(String filePath, int threads) {
+        final long[] offsets = Utils.splitFileLines(filePath, threads);
+        Utils.runInParallel(threads, thread ->
+            Utils.iterateFileLines(filePath, offsets[thread], offsets[thread + 1], password -> this.delete(password)));
+    }
+}
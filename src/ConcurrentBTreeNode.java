@@ -0,0 +1,363 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A node of a concurrent B-tree, guarded by a version (optimistic lock coupling).
+ * A reader reads the version, reads the node without taking any lock and then checks that the
+ * version hasn't changed, and a writer locks the node by turning a bit of the version on
+ * and changes the version when it unlocks it.
+ * The keys, the children and the size are read and written atomically, so a reader which races
+ * with a writer may see a mix of old and new values (which the version check rejects afterwards),
+ * but never a key or a child which wasn't completely written.
+ */
+class ConcurrentBTreeNode {
+    /**
+     * The bit of the version which is on once the node was merged into its sibling,
+     * and it isn't in the tree anymore
+     */
+    private static final long OBSOLETE = 1;
+
+    /**
+     * The bit of the version which is on while the node is locked by a writer
+     */
+    private static final long LOCKED = 2;
+
+    /**
+     * A version which no node has, returned instead of a version when the operation has to restart
+     */
+    static final long RESTART = -1;
+
+    /**
+     * A result of a local search which was read while the node was changed, the operation has to restart
+     */
+    static final int INCONSISTENT = Integer.MIN_VALUE;
+
+    final AtomicReferenceArray<String> keys;
+
+    /**
+     * The children of the node, null for a leaf
+     */
+    final AtomicReferenceArray<ConcurrentBTreeNode> children;
+
+    private final AtomicLong version;
+    private final int t;
+    private volatile int n;
+
+    ConcurrentBTreeNode(int t, boolean leaf) {
+        this.t = t;
+        this.keys = new AtomicReferenceArray<>(2*t - 1);
+        this.children = leaf ? null : new AtomicReferenceArray<>(2*t);
+        this.version = new AtomicLong(0);
+        this.n = 0;
+    }
+
+    public boolean isLeaf() {
+        return children == null;
+    }
+
+    /**
+     * Returns the amount of keys this node holds
+     */
+    public int size() {
+        return n;
+    }
+
+    public boolean isFull() {
+        return size() == keys.length();
+    }
+
+    /**
+     * Returns whether this node holds the minimum amount of keys a node which isn't the root can hold
+     */
+    public boolean needsKey() {
+        return size() == t - 1;
+    }
+
+    /**
+     * Waits until the node isn't locked and returns its version
+     * @return The version, or RESTART if the node isn't in the tree anymore
+     */
+    long readLock() {
+        long version;
+        while (((version = this.version.get()) & LOCKED) != 0) {
+            Thread.yield();
+        }
+
+        return (version & OBSOLETE) != 0 ? RESTART : version;
+    }
+
+    /**
+     * Returns whether the node wasn't changed since its version was read
+     * @param version The version which was read
+     */
+    boolean validate(long version) {
+        return this.version.get() == version;
+    }
+
+    /**
+     * Locks the node if it wasn't changed since its version was read
+     * @param version The version which was read
+     * @return Whether the node was locked
+     */
+    boolean upgradeToWriteLock(long version) {
+        return version != RESTART && this.version.compareAndSet(version, version + LOCKED);
+    }
+
+    /**
+     * Locks the node at its current version, without waiting for another writer
+     * (a writer calls it while holding other locks)
+     * @return Whether the node was locked
+     */
+    boolean tryWriteLock() {
+        long version = this.version.get();
+        return (version & (LOCKED | OBSOLETE)) == 0 && upgradeToWriteLock(version);
+    }
+
+    /**
+     * Unlocks the node, which turns the locked bit off and changes the version
+     */
+    void writeUnlock() {
+        version.addAndGet(LOCKED);
+    }
+
+    /**
+     * Unlocks the node after it was removed from the tree, readers which are in it restart
+     */
+    void writeUnlockObsolete() {
+        version.addAndGet(LOCKED + OBSOLETE);
+    }
+
+    /**
+     * Search only this node for the given key (without diving down to the children),
+     * with a binary search over the keys
+     * @param password The key to look for
+     * @param ignoreAsciiCase Whether to compare the key as if its ascii letters were lower case
+     * @return The first index from the left whose key is not smaller than the given key,
+     * if the key in that index is the given key. Otherwise -(the index + 1).
+     * INCONSISTENT if a key was removed while it was read.
+     */
+    int localSearch(String password, boolean ignoreAsciiCase) {
+        int low = 0;
+        int high = size();
+        int compareResult = -1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            String key = keys.get(middle);
+            if (key == null) {
+                return INCONSISTENT;
+            }
+
+            int middleCompareResult = ignoreAsciiCase ?
+                                      BTreeNode.compareIgnoreAsciiCase(password, key) :
+                                      password.compareTo(key);
+            if (middleCompareResult > 0) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+                compareResult = middleCompareResult;
+            }
+        }
+
+        return compareResult == 0 ? low : -(low + 1);
+    }
+
+    /**
+     * Returns whether a result of a local search is of a found key
+     * @param searchResult The result of the local search
+     */
+    static boolean found(int searchResult) {
+        return searchResult >= 0;
+    }
+
+    /**
+     * Returns the index of a result of a local search, the first index from the left
+     * whose key is not smaller than the key searched for
+     * @param searchResult The result of the local search
+     */
+    static int index(int searchResult) {
+        return searchResult >= 0 ? searchResult : -(searchResult + 1);
+    }
+
+    /**
+     * Inserts a key to this node at the specified index (knowing it's a locked leaf which isn't full)
+     * @param i The index
+     * @param password The key
+     */
+    void insertKeyAt(int i, String password) {
+        insertAt(keys, size(), i, password);
+        n++;
+    }
+
+    /**
+     * Removes the key at the specified index from this node (knowing it's a locked leaf)
+     * @param i The index
+     * @return The removed key
+     */
+    String removeKeyAt(int i) {
+        String password = removeAt(keys, size(), i);
+        n--;
+        return password;
+    }
+
+    /**
+     * Splits the child at the specified index (knowing this node and the child are locked,
+     * the child is full and this node isn't) to 2 nodes, the middle key of the child moves to this node
+     * @param i The index of the child
+     */
+    void splitChild(int i) {
+        ConcurrentBTreeNode child = children.get(i);
+        ConcurrentBTreeNode splitChild = new ConcurrentBTreeNode(t, child.isLeaf());
+
+        // the new node is filled before it is reachable from this node
+        for (int j = 0; j < t - 1; j++) {
+            splitChild.keys.set(j, child.keys.get(t + j));
+        }
+        if (!child.isLeaf()) {
+            for (int j = 0; j < t; j++) {
+                splitChild.children.set(j, child.children.get(t + j));
+            }
+        }
+
+        splitChild.n = t - 1;
+
+        String middle = child.keys.get(t - 1);
+        child.n = t - 1;
+        for (int j = t - 1; j < child.keys.length(); j++) {
+            child.keys.set(j, null);
+        }
+        if (!child.isLeaf()) {
+            for (int j = t; j < child.children.length(); j++) {
+                child.children.set(j, null);
+            }
+        }
+
+        insertAt(children, size() + 1, i + 1, splitChild);
+        insertAt(keys, size(), i, middle);
+        n++;
+    }
+
+    /**
+     * Merges the child at the specified index with its right sibling (knowing this node and both
+     * children are locked and hold the minimum amount of keys). The right sibling is left as is,
+     * and should be unlocked as obsolete.
+     * @param i The child index
+     * @return The merged node
+     */
+    ConcurrentBTreeNode merge(int i) {
+        ConcurrentBTreeNode leftChild = children.get(i);
+        ConcurrentBTreeNode rightChild = children.get(i + 1);
+        int leftSize = leftChild.size();
+        int rightSize = rightChild.size();
+
+        // the key separating both children goes down between the keys of both children
+        leftChild.keys.set(leftSize, keys.get(i));
+        for (int j = 0; j < rightSize; j++) {
+            leftChild.keys.set(leftSize + 1 + j, rightChild.keys.get(j));
+        }
+        if (!leftChild.isLeaf()) {
+            for (int j = 0; j <= rightSize; j++) {
+                leftChild.children.set(leftSize + 1 + j, rightChild.children.get(j));
+            }
+        }
+
+        leftChild.n = leftSize + 1 + rightSize;
+
+        removeAt(keys, size(), i);
+        removeAt(children, size() + 1, i + 1);
+        n--;
+        return leftChild;
+    }
+
+    /**
+     * Moves the last key (and child) of the left sibling of the child at specified index to the child,
+     * through the key separating them (knowing this node, the child and its left sibling are locked)
+     * @param i The child index
+     */
+    void shiftRight(int i) {
+        ConcurrentBTreeNode child = children.get(i);
+        ConcurrentBTreeNode leftSibling = children.get(i - 1);
+        insertAt(child.keys, child.size(), 0, keys.get(i - 1));
+        if (!child.isLeaf()) {
+            insertAt(child.children, child.size() + 1, 0, leftSibling.children.get(leftSibling.size()));
+            leftSibling.children.set(leftSibling.size(), null);
+        }
+
+        child.n++;
+        keys.set(i - 1, removeAt(leftSibling.keys, leftSibling.size(), leftSibling.size() - 1));
+        leftSibling.n--;
+    }
+
+    /**
+     * Moves the first key (and child) of the right sibling of the child at specified index to the child,
+     * through the key separating them (knowing this node, the child and its right sibling are locked)
+     * @param i The child index
+     */
+    void shiftLeft(int i) {
+        ConcurrentBTreeNode child = children.get(i);
+        ConcurrentBTreeNode rightSibling = children.get(i + 1);
+        child.keys.set(child.size(), keys.get(i));
+        if (!child.isLeaf()) {
+            child.children.set(child.size() + 1, removeAt(rightSibling.children, rightSibling.size() + 1, 0));
+        }
+
+        child.n++;
+        keys.set(i, removeAt(rightSibling.keys, rightSibling.size(), 0));
+        rightSibling.n--;
+    }
+
+    /**
+     * Inserts an item at the specified index, shifting the items after it to the right
+     * @param items The items
+     * @param size The amount of items
+     * @param index The index
+     * @param item The item
+     */
+    private static <T> void insertAt(AtomicReferenceArray<T> items, int size, int index, T item) {
+        for (int j = size; j > index; j--) {
+            items.set(j, items.get(j - 1));
+        }
+
+        items.set(index, item);
+    }
+
+    /**
+     * Removes the item at the specified index, shifting the items after it to the left
+     * @param items The items
+     * @param size The amount of items
+     * @param index The index
+     * @return The removed item
+     */
+    private static <T> T removeAt(AtomicReferenceArray<T> items, int size, int index) {
+        T item = items.get(index);
+        for (int j = index; j < size - 1; j++) {
+            items.set(j, items.get(j + 1));
+        }
+
+        items.set(size - 1, null);
+        return item;
+    }
+
+    /**
+     * Appends the string representation of the subtree rooted at this node
+     * to the specified string builder starting at the specified depth, in the format of BTree
+     * @param sb The string builder to append to
+     * @param depth The depth of this node
+     */
+    void appendString(StringBuilder sb, int depth) {
+        for (int i = 0; i < size(); i++) {
+            if (!isLeaf()) {
+                children.get(i).appendString(sb, depth + 1);
+                sb.append(",");
+            }
+
+            sb.append(keys.get(i)).append("_").append(depth);
+            if (i < size() - 1 || !isLeaf()) {
+                sb.append(",");
+            }
+        }
+        if (!isLeaf()) {
+            children.get(size()).appendString(sb, depth + 1);
+        }
+    }
+}
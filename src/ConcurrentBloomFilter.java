@@ -0,0 +1,88 @@
+/**
+ * A bloom filter which can be inserted to by many threads at once,
+ * while other threads check passwords against it.
+ * The bits are turned on with atomic compare-and-set of their words, so inserts don't take locks.
+ */
+public class ConcurrentBloomFilter extends BloomFilter {
+    /**
+     * Initializes a new concurrent bloom filter
+     * @param m1 The size of the bloom filter in bits
+     * @param filePath The file path to read hash functions from
+     */
+    public ConcurrentBloomFilter(String m1, String filePath) {
+        super(m1, filePath);
+    }
+
+    /**
+     * Initializes a new concurrent bloom filter
+     * @param m1 The size of the bloom filter in bits
+     * @param filePath The file path to read hash functions from
+     * @param blocked Whether to use blocked mode
+     */
+    public ConcurrentBloomFilter(String m1, String filePath, boolean blocked) {
+        super(m1, filePath, blocked);
+    }
+
+    /**
+     * Initializes a new concurrent bloom filter
+     * @param m1 The size of the bloom filter in bits
+     * @param filePath The file path to read hash functions from
+     * @param blocked Whether to use blocked mode
+     * @param keyHashFunction The hash function which converts the passwords to keys
+     */
+    public ConcurrentBloomFilter(String m1, String filePath, boolean blocked, PasswordHashFunction keyHashFunction) {
+        super(m1, filePath, blocked, keyHashFunction);
+    }
+
+    /**
+     * Initializes a new concurrent bloom filter which derives all of its probes
+     * from two hashes of the key (double hashing)
+     * @param m1 The size of the bloom filter in bits
+     * @param k The amount of probes for each key
+     */
+    public ConcurrentBloomFilter(String m1, int k) {
+        super(m1, k);
+    }
+
+    /**
+     * Initializes a new concurrent bloom filter which derives all of its probes
+     * from two hashes of the key (double hashing)
+     * @param m1 The size of the bloom filter in bits
+     * @param k The amount of probes for each key
+     * @param blocked Whether to use blocked mode
+     */
+    public ConcurrentBloomFilter(String m1, int k, boolean blocked) {
+        super(m1, k, blocked);
+    }
+
+    /**
+     * Initializes a new concurrent bloom filter which derives all of its probes
+     * from two hashes of the key (double hashing)
+     * @param m1 The size of the bloom filter in bits
+     * @param k The amount of probes for each key
+     * @param blocked Whether to use blocked mode
+     * @param keyHashFunction The hash function which converts the passwords to keys
+     */
+    public ConcurrentBloomFilter(String m1, int k, boolean blocked, PasswordHashFunction keyHashFunction) {
+        super(m1, k, blocked, keyHashFunction);
+    }
+
+    @Override
+    protected AbstractBitArray createBitArray(int length) {
+        return new AtomicBitArray(length);
+    }
+
+    /**
+     * Inserts all of the passwords in the file, splitting the file between the threads.
+     * Each thread inserts the lines of its own range directly to this filter,
+     * so unlike in a regular bloom filter no bit array is needed for each thread.
+     * @param filePath The path to the file containing the passwords as lines
+     * @param threads The amount of threads
+     */
+    @Override
+    public void updateTable(String filePath, int threads) {
+        final long[] offsets = Utils.splitFileLines(filePath, threads);
+        Utils.runInParallel(threads, thread ->
+            Utils.iterateFileLines(filePath, offsets[thread], offsets[thread + 1], password -> this.insert(password)));
+    }
+}
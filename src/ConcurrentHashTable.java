@@ -0,0 +1,221 @@
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A hash table which can be inserted to by many threads at once,
+ * while other threads look passwords up in it.
+ * The keys are split between segments by the high bits of their hash, each segment is an open
+ * addressing table of its own with its own lock (lock striping), so inserts to different segments
+ * don't wait for each other. Lookups don't take any lock: a slot only ever changes from empty to a key,
+ * and a segment which grows is replaced by a longer table only after all of its keys are in it.
+ * There is no deletion, moving keys back over a deleted key would hide them from concurrent lookups.
+ */
+public class ConcurrentHashTable implements PasswordSet {
+    /**
+     * log2 of the amount of segments
+     */
+    private static final int SEGMENT_BITS = 6;
+
+    private final Segment[] segments;
+    private volatile boolean containsEmptyKey;
+
+    /**
+     * Converts the passwords to keys, the table holds the lower 32 bits of the keys
+     */
+    private final PasswordHashFunction keyHashFunction;
+
+    public ConcurrentHashTable(String m2) {
+        this(m2, new HornerPasswordHashFunction());
+    }
+
+    /**
+     * @param m2 The initial size of the table, it grows when needed
+     * @param keyHashFunction The hash function which converts the passwords to keys
+     * (horner's rule modulo p in the other constructor)
+     */
+    public ConcurrentHashTable(String m2, PasswordHashFunction keyHashFunction) {
+        if (keyHashFunction == null) {
+            throw new RuntimeException("keyHashFunction is null.");
+        }
+
+        this.keyHashFunction = keyHashFunction;
+        int segmentLength = HashTable.tableLength(Math.max(HashTable.parseM2(m2) >>> SEGMENT_BITS, 1));
+        this.segments = new Segment[1 << SEGMENT_BITS];
+        for (int i = 0; i < this.segments.length; i++) {
+            this.segments[i] = new Segment(segmentLength);
+        }
+
+        this.containsEmptyKey = false;
+    }
+
+    public void updateTable(String filePath) {
+        Utils.iterateFileLines(filePath, password -> this.insert(password));
+    }
+
+    /**
+     * Inserts all of the passwords in the file, splitting the file between the threads
+     * @param filePath The path to the file containing the passwords as lines
+     * @param threads The amount of threads
+     */
+    public void updateTable(String filePath, int threads) {
+        final long[] offsets = Utils.splitFileLines(filePath, threads);
+        Utils.runInParallel(threads, thread ->
+            Utils.iterateFileLines(filePath, offsets[thread], offsets[thread + 1], password -> this.insert(password)));
+    }
+
+    public boolean contains(String password) {
+        int key = this.key(password);
+        return this.contains(key);
+    }
+
+    public boolean contains(int key) {
+        if (key == HashTable.EMPTY) {
+            return this.containsEmptyKey;
+        }
+
+        int hash = key * HashTable.GOLDEN_RATIO;
+        return this.segment(hash).table.contains(key, hash << SEGMENT_BITS);
+    }
+
+    public void insert(String password) {
+        int key = this.key(password);
+        this.insert(key);
+    }
+
+    /**
+     * Inserts the key to the table, if it isn't there already
+     * @param key The key
+     */
+    public void insert(int key) {
+        if (key == HashTable.EMPTY) {
+            this.containsEmptyKey = true;
+        }
+        else {
+            int hash = key * HashTable.GOLDEN_RATIO;
+            this.segment(hash).insert(key, hash << SEGMENT_BITS);
+        }
+    }
+
+    public String getSearchTime(String filePath) {
+        return Utils.getSearchTime(filePath, password -> contains(password));
+    }
+
+    /**
+     * Converts the password to its key
+     * @param password The password
+     */
+    private int key(String password) {
+        return (int)this.keyHashFunction.hash(password);
+    }
+
+    private Segment segment(int hash) {
+        return this.segments[hash >>> (Integer.SIZE - SEGMENT_BITS)];
+    }
+
+    /**
+     * A part of the keys, the keys whose hash starts with the same bits
+     */
+    private static class Segment {
+        /**
+         * The table of the keys, replaced (never changed) when the segment grows
+         */
+        private volatile Table table;
+
+        /**
+         * The amount of keys in the segment, guarded by the lock of the segment
+         */
+        private int size;
+
+        private Segment(int length) {
+            this.table = new Table(length);
+            this.size = 0;
+        }
+
+        /**
+         * Inserts the key to the segment, if it isn't there already
+         * @param key The key, not the empty key
+         * @param hash The bits of the hash of the key which weren't used to select the segment
+         */
+        private synchronized void insert(int key, int hash) {
+            if (this.table.insert(key, hash)) {
+                this.size++;
+                if (this.size >= this.table.length() * HashTable.MAX_LOAD_FACTOR) {
+                    this.grow();
+                }
+            }
+        }
+
+        /**
+         * Replaces the table with a table twice as long which has all of the keys.
+         * Lookups keep using the old table until the new one is complete.
+         */
+        private void grow() {
+            Table oldTable = this.table;
+            Table newTable = new Table(oldTable.length() * 2);
+            for (int i = 0; i < oldTable.length(); i++) {
+                int key = oldTable.slots.get(i);
+                if (key != HashTable.EMPTY) {
+                    newTable.insert(key, (key * HashTable.GOLDEN_RATIO) << SEGMENT_BITS);
+                }
+            }
+
+            this.table = newTable;
+        }
+    }
+
+    /**
+     * An open addressing table with linear probing, whose slots are read and written atomically
+     */
+    private static class Table {
+        private final AtomicIntegerArray slots;
+
+        /**
+         * 32 - log2 of the length of the table
+         */
+        private final int shift;
+
+        private Table(int length) {
+            if (length <= 0) {
+                throw new RuntimeException("the hash table is too big.");
+            }
+
+            this.slots = new AtomicIntegerArray(length);
+            this.shift = Integer.SIZE - Integer.numberOfTrailingZeros(length);
+        }
+
+        private int length() {
+            return this.slots.length();
+        }
+
+        private boolean contains(int key, int hash) {
+            int mask = this.slots.length() - 1;
+            for (int i = hash >>> this.shift; ; i = (i + 1) & mask) {
+                int slot = this.slots.get(i);
+                if (slot == key) {
+                    return true;
+                }
+                if (slot == HashTable.EMPTY) {
+                    return false;
+                }
+            }
+        }
+
+        /**
+         * Puts the key in the first empty slot from its hash on, if it isn't there already.
+         * Must be called only by the thread holding the lock of the segment.
+         * @return Whether the key was inserted
+         */
+        private boolean insert(int key, int hash) {
+            int mask = this.slots.length() - 1;
+            for (int i = hash >>> this.shift; ; i = (i + 1) & mask) {
+                int slot = this.slots.get(i);
+                if (slot == key) {
+                    return false;
+                }
+                if (slot == HashTable.EMPTY) {
+                    this.slots.set(i, key);
+                    return true;
+                }
+            }
+        }
+    }
+}
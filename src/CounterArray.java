@@ -0,0 +1,91 @@
+/**
+ * An array of 4 bit counters, packed 16 to each 64 bit word.
+ * A counter which reaches the maximum value sticks to it,
+ * since we can't know anymore how many times it was incremented.
+ */
+public class CounterArray {
+    private static final int BITS_PER_COUNTER = 4;
+    private static final int COUNTERS_PER_WORD = Long.SIZE / BITS_PER_COUNTER;
+
+    /**
+     * log2(COUNTERS_PER_WORD), used to turn the division by the counters in a word into a shift
+     */
+    private static final int WORD_SHIFT = 4;
+    private static final int COUNTER_INDEX_MASK = COUNTERS_PER_WORD - 1;
+
+    static final int MAX_VALUE = (1 << BITS_PER_COUNTER) - 1;
+
+    private final long[] words;
+    private final int length;
+
+    public CounterArray(int length) {
+        if (length < 0) {
+            throw new RuntimeException("The length must be a non-negative number.");
+        }
+
+        int wordsLength = length > 0 ? (((length - 1) >>> WORD_SHIFT) + 1) : 0;
+        this.words = new long[wordsLength];
+        this.length = length;
+    }
+
+    /**
+     * Returns the length of the array, the amount of counters
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns the value of the counter at the given index
+     * @param index The counter index
+     */
+    public int get(int index) {
+        validateIndex(index);
+        return (int)(this.words[index >>> WORD_SHIFT] >>> getShift(index)) & MAX_VALUE;
+    }
+
+    /**
+     * Increments the counter at the given index, unless it reached the maximum value
+     * @param index The counter index
+     * @return The new value of the counter
+     */
+    public int increment(int index) {
+        int value = this.get(index);
+        if (value < MAX_VALUE) {
+            value++;
+            this.words[index >>> WORD_SHIFT] += 1L << getShift(index);
+        }
+
+        return value;
+    }
+
+    /**
+     * Decrements the counter at the given index,
+     * unless it is 0 or it reached the maximum value (and therefore sticks to it)
+     * @param index The counter index
+     * @return The new value of the counter
+     */
+    public int decrement(int index) {
+        int value = this.get(index);
+        if (value > 0 && value < MAX_VALUE) {
+            value--;
+            this.words[index >>> WORD_SHIFT] -= 1L << getShift(index);
+        }
+
+        return value;
+    }
+
+    private void validateIndex(int index) {
+        if (index < 0 | index >= this.length()) {
+            throw new RuntimeException("index out of range.");
+        }
+    }
+
+    /**
+     * Returns the shift of the counter at the given index inside its word
+     * @param index The counter index
+     */
+    private static int getShift(int index) {
+        return (index & COUNTER_INDEX_MASK) * BITS_PER_COUNTER;
+    }
+}
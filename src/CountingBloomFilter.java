@@ -0,0 +1,148 @@
+/**
+ * A bloom filter which also supports removing passwords.
+ * Each bit has a 4 bit counter of the passwords which probe it, and a bit is turned off
+ * when its counter drops back to 0. Lookups only read the bits, like in a regular bloom filter.
+ * Only passwords which were inserted should be removed, removing anything else
+ * might cause false negatives.
+ */
+public class CountingBloomFilter extends BloomFilter {
+    private final CounterArray counters;
+
+    /**
+     * Initializes a new counting bloom filter
+     * @param m1 The size of the bloom filter in bits
+     * @param filePath The file path to read hash functions from
+     */
+    public CountingBloomFilter(String m1, String filePath) {
+        super(m1, filePath);
+        this.counters = new CounterArray(this.bitArray().length());
+    }
+
+    /**
+     * Initializes a new counting bloom filter
+     * @param m1 The size of the bloom filter in bits
+     * @param filePath The file path to read hash functions from
+     * @param blocked Whether to use blocked mode
+     */
+    public CountingBloomFilter(String m1, String filePath, boolean blocked) {
+        super(m1, filePath, blocked);
+        this.counters = new CounterArray(this.bitArray().length());
+    }
+
+    /**
+     * Initializes a new counting bloom filter
+     * @param m1 The size of the bloom filter in bits
+     * @param filePath The file path to read hash functions from
+     * @param blocked Whether to use blocked mode
+     * @param keyHashFunction The hash function which converts the passwords to keys
+     */
+    public CountingBloomFilter(String m1, String filePath, boolean blocked, PasswordHashFunction keyHashFunction) {
+        super(m1, filePath, blocked, keyHashFunction);
+        this.counters = new CounterArray(this.bitArray().length());
+    }
+
+    /**
+     * Initializes a new counting bloom filter which derives all of its probes
+     * from two hashes of the key (double hashing)
+     * @param m1 The size of the bloom filter in bits
+     * @param k The amount of probes for each key
+     */
+    public CountingBloomFilter(String m1, int k) {
+        super(m1, k);
+        this.counters = new CounterArray(this.bitArray().length());
+    }
+
+    /**
+     * Initializes a new counting bloom filter which derives all of its probes
+     * from two hashes of the key (double hashing)
+     * @param m1 The size of the bloom filter in bits
+     * @param k The amount of probes for each key
+     * @param blocked Whether to use blocked mode
+     */
+    public CountingBloomFilter(String m1, int k, boolean blocked) {
+        super(m1, k, blocked);
+        this.counters = new CounterArray(this.bitArray().length());
+    }
+
+    /**
+     * Initializes a new counting bloom filter which derives all of its probes
+     * from two hashes of the key (double hashing)
+     * @param m1 The size of the bloom filter in bits
+     * @param k The amount of probes for each key
+     * @param blocked Whether to use blocked mode
+     * @param keyHashFunction The hash function which converts the passwords to keys
+     */
+    public CountingBloomFilter(String m1, int k, boolean blocked, PasswordHashFunction keyHashFunction) {
+        super(m1, k, blocked, keyHashFunction);
+        this.counters = new CounterArray(this.bitArray().length());
+    }
+
+    @Override
+    protected void insertIndex(int index) {
+        this.counters.increment(index);
+        super.insertIndex(index);
+    }
+
+    /**
+     * Removes the password from the bloom filter
+     * @param password The password
+     * @return Whether the password was in the filter (and therefore removed)
+     */
+    public boolean remove(String password) {
+        int[] indices = new int[this.probes()];
+        this.probe(password, indices);
+
+        // if one of the counters is 0, the password isn't in the filter
+        boolean contains = true;
+        for (int i = 0; i < indices.length && contains; i++) {
+            contains = this.counters.get(indices[i]) > 0;
+        }
+
+        if (contains) {
+            for (int index : indices) {
+                if (this.counters.decrement(index) == 0) {
+                    this.bitArray().set(index, false);
+                }
+            }
+        }
+
+        return contains;
+    }
+
+    /**
+     * Not supported, merging the bits would leave the counters behind them wrong
+     */
+    @Override
+    public void updateTable(String filePath, int threads) {
+        throw new RuntimeException("a counting bloom filter can't be built in parallel.");
+    }
+
+    /**
+     * Not supported, merging the bits would leave the counters behind them wrong
+     */
+    @Override
+    public void union(BloomFilter other) {
+        throw new RuntimeException("a counting bloom filter can't be merged.");
+    }
+
+    /**
+     * Not supported, merging the bits would leave the counters behind them wrong
+     */
+    @Override
+    public void intersect(BloomFilter other) {
+        throw new RuntimeException("a counting bloom filter can't be merged.");
+    }
+
+    /**
+     * Not supported, a snapshot holds only the bits and is opened read-only,
+     * so the counters which make removing possible would be lost
+     */
+    @Override
+    public void save(String filePath) {
+        throw new RuntimeException("a counting bloom filter can't be saved as a snapshot.");
+    }
+
+    public void deleteKeysFromFilter(String filePath) {
+        Utils.iterateFileLines(filePath, password -> this.remove(password));
+    }
+}
@@ -0,0 +1,436 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * A cuckoo filter, an alternative to the bloom filter which also supports deletion.
+ * It holds a fingerprint of each password in one of two buckets of 4 slots
+ * (partial-key cuckoo hashing, the other bucket is found from a bucket and the fingerprint alone).
+ * The fingerprint is as short as the target false positive rate allows, log2(2 * 4 / rate) bits,
+ * and the buckets are packed one after the other, so a bucket spans at most two words and a lookup
+ * reads at most two buckets.
+ * Each password takes about (log2(1 / rate) + 3) / 0.95 bits, while a bloom filter takes
+ * 1.44 * log2(1 / rate) bits, so the cuckoo filter is smaller only for rates below about 0.3%
+ * (around 0.5% they are about the same size, 11.6 against 11 bits per password).
+ * Inserting the same password twice holds it twice, so it should be deleted twice as well.
+ */
+public class CuckooFilter {
+    private static final int SLOTS_PER_BUCKET = 4;
+
+    /**
+     * The longest fingerprint, so a bucket fits in a word
+     */
+    private static final int MAX_FINGERPRINT_BITS = Long.SIZE / SLOTS_PER_BUCKET;
+
+    /**
+     * The false positive rate of the filters whose rate isn't given
+     */
+    public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.005;
+
+    /**
+     * The fingerprint of an empty slot
+     */
+    private static final int EMPTY = 0;
+
+    /**
+     * The fraction of the slots we expect to be able to fill
+     */
+    private static final double MAX_LOAD_FACTOR = 0.95;
+
+    /**
+     * How many fingerprints are relocated by an insert until the filter is considered full
+     */
+    private static final int MAX_KICKS = 500;
+
+    /**
+     * The buckets, packed one after the other. There is an extra word at the end,
+     * so the last bucket can be read as two words as well.
+     */
+    private final long[] words;
+    private final int bucketsLength;
+
+    private final int fingerprintBits;
+    private final long fingerprintMask;
+    private final int bucketBits;
+    private final long bucketMask;
+
+    /**
+     * A bucket with 1 in the lowest / highest bit of each slot
+     */
+    private final long lowBits;
+    private final long highBits;
+
+    private final PasswordHashFunction keyHashFunction;
+
+    /**
+     * A fingerprint which couldn't be placed in any bucket, we keep it here so the password
+     * it belongs to isn't lost. While there is one the filter is full.
+     */
+    private int victimFingerprint;
+    private int victimBucket;
+
+    /**
+     * The state of the random generator which picks which fingerprints are relocated
+     */
+    private long random;
+
+    /**
+     * Initializes a new cuckoo filter with the default false positive rate
+     * @param capacity The amount of passwords the filter should be able to hold
+     */
+    public CuckooFilter(String capacity) {
+        this(capacity, DEFAULT_FALSE_POSITIVE_RATE);
+    }
+
+    /**
+     * Initializes a new cuckoo filter
+     * @param capacity The amount of passwords the filter should be able to hold
+     * @param falsePositiveRate The target false positive rate, the length of the fingerprints is derived from it
+     */
+    public CuckooFilter(String capacity, double falsePositiveRate) {
+        this(capacity, falsePositiveRate, new MixPasswordHashFunction(0));
+    }
+
+    /**
+     * Initializes a new cuckoo filter
+     * @param capacity The amount of passwords the filter should be able to hold
+     * @param falsePositiveRate The target false positive rate, the length of the fingerprints is derived from it
+     * @param keyHashFunction The hash function which converts the passwords to keys,
+     * both the fingerprint and the bucket are taken from the key so it should have 64 good bits
+     */
+    public CuckooFilter(String capacity, double falsePositiveRate, PasswordHashFunction keyHashFunction) {
+        int parsedCapacity;
+        try {
+            parsedCapacity = Integer.parseInt(capacity);
+        }
+        catch (NumberFormatException e) {
+            throw new RuntimeException("capacity is not a number.", e);
+        }
+
+        if (parsedCapacity <= 0) {
+            throw new RuntimeException("capacity must be a positive number.");
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new RuntimeException("falsePositiveRate must be between 0 and 1.");
+        }
+        if (keyHashFunction == null) {
+            throw new RuntimeException("keyHashFunction is null.");
+        }
+
+        // a lookup compares the fingerprint with the 2 * 4 slots of its buckets,
+        // each of them matches a different fingerprint with a chance of 1 / 2^bits
+        this.fingerprintBits = (int)Math.ceil(Math.log(2 * SLOTS_PER_BUCKET / falsePositiveRate) / Math.log(2));
+        if (this.fingerprintBits > MAX_FINGERPRINT_BITS) {
+            throw new RuntimeException("falsePositiveRate is too small for the cuckoo filter.");
+        }
+
+        this.fingerprintMask = (1L << this.fingerprintBits) - 1;
+        this.bucketBits = this.fingerprintBits * SLOTS_PER_BUCKET;
+        this.bucketMask = this.bucketBits < Long.SIZE ? (1L << this.bucketBits) - 1 : -1L;
+        long lowBits = 0;
+        for (int slot = 0; slot < SLOTS_PER_BUCKET; slot++) {
+            lowBits |= 1L << (slot * this.fingerprintBits);
+        }
+
+        this.lowBits = lowBits;
+        this.highBits = lowBits << (this.fingerprintBits - 1);
+
+        long bucketsLength = Math.max(1, (long)Math.ceil(parsedCapacity / MAX_LOAD_FACTOR / SLOTS_PER_BUCKET));
+        long wordsLength = (bucketsLength * this.bucketBits + Long.SIZE - 1) / Long.SIZE + 1;
+        if (wordsLength > Integer.MAX_VALUE) {
+            throw new RuntimeException("the cuckoo filter is too big.");
+        }
+
+        this.words = new long[(int)wordsLength];
+        this.bucketsLength = (int)bucketsLength;
+        this.keyHashFunction = keyHashFunction;
+        this.victimFingerprint = EMPTY;
+        this.random = 1;
+    }
+
+    /**
+     * Returns the size of the buckets in bits
+     */
+    public long getSizeInBits() {
+        return (long)this.bucketsLength * this.bucketBits;
+    }
+
+    public void updateTable(String filePath) {
+        Utils.iterateFileLines(filePath, password -> this.insert(password));
+    }
+
+    public void deleteKeysFromFilter(String filePath) {
+        Utils.iterateFileLines(filePath, password -> this.delete(password));
+    }
+
+    /**
+     * Inserts a new password to the filter
+     * @param password The password
+     */
+    public void insert(String password) {
+        if (this.victimFingerprint != EMPTY) {
+            throw new RuntimeException("the cuckoo filter is full.");
+        }
+
+        long key = this.keyHashFunction.hash(password);
+        this.place(this.bucketOf(key), this.fingerprint(key));
+    }
+
+    /**
+     * Places the fingerprint in one of its buckets, relocating other fingerprints if both are full
+     * @param bucket One of the buckets of the fingerprint
+     * @param fingerprint The fingerprint
+     */
+    private void place(int bucket, int fingerprint) {
+        int alternateBucket = this.alternateBucket(bucket, fingerprint);
+        if (!this.insertToBucket(bucket, fingerprint) && !this.insertToBucket(alternateBucket, fingerprint)) {
+            this.relocate(this.nextRandom() % 2 == 0 ? bucket : alternateBucket, fingerprint);
+        }
+    }
+
+    /**
+     * Makes room for the fingerprint by kicking fingerprints out of their buckets
+     * to their alternate buckets
+     * @param bucket The bucket to insert the fingerprint to
+     * @param fingerprint The fingerprint
+     */
+    private void relocate(int bucket, int fingerprint) {
+        for (int kicks = 0; kicks < MAX_KICKS; kicks++) {
+            // put the fingerprint instead of a random one in the bucket,
+            // and try to put the kicked fingerprint in its alternate bucket
+            int slot = (int)(this.nextRandom() % SLOTS_PER_BUCKET);
+            int kicked = this.getSlot(this.bucket(bucket), slot);
+            this.setBucket(bucket, this.setSlot(this.bucket(bucket), slot, fingerprint));
+
+            fingerprint = kicked;
+            bucket = this.alternateBucket(bucket, fingerprint);
+            if (this.insertToBucket(bucket, fingerprint)) {
+                return;
+            }
+        }
+
+        this.victimFingerprint = fingerprint;
+        this.victimBucket = bucket;
+    }
+
+    /**
+     * Returns whether the password is in the filter
+     * @param password The password
+     */
+    public boolean contains(String password) {
+        long key = this.keyHashFunction.hash(password);
+        int fingerprint = this.fingerprint(key);
+        int bucket = this.bucketOf(key);
+        int alternateBucket = this.alternateBucket(bucket, fingerprint);
+        return this.hasFingerprint(this.bucket(bucket), fingerprint) ||
+               this.hasFingerprint(this.bucket(alternateBucket), fingerprint) ||
+               this.isVictim(bucket, alternateBucket, fingerprint);
+    }
+
+    /**
+     * Deletes the password from the filter
+     * @param password The password
+     * @return Whether the password was in the filter (and therefore deleted)
+     */
+    public boolean delete(String password) {
+        long key = this.keyHashFunction.hash(password);
+        int fingerprint = this.fingerprint(key);
+        int bucket = this.bucketOf(key);
+        int alternateBucket = this.alternateBucket(bucket, fingerprint);
+
+        boolean deleted;
+        if (this.isVictim(bucket, alternateBucket, fingerprint)) {
+            this.victimFingerprint = EMPTY;
+            deleted = true;
+        }
+        else {
+            deleted = this.deleteFromBucket(bucket, fingerprint) || this.deleteFromBucket(alternateBucket, fingerprint);
+            if (deleted && this.victimFingerprint != EMPTY) {
+                // there's room now, try to place the victim again
+                int victimFingerprint = this.victimFingerprint;
+                this.victimFingerprint = EMPTY;
+                this.place(this.victimBucket, victimFingerprint);
+            }
+        }
+
+        return deleted;
+    }
+
+    public String getRejectedPasswordsAmount(String filePath) {
+        return Utils.consumeFileReader(filePath, reader -> getRejectedPasswordsAmount(reader)).toString();
+    }
+
+    /**
+     * Returns the amount of passwords rejected by this filter
+     * @param reader The reader of the file
+     */
+    private int getRejectedPasswordsAmount(BufferedReader reader) throws IOException {
+        int badPasswords = 0;
+
+        String password;
+        while ((password = reader.readLine()) != null) {
+            if (this.contains(password)) {
+                badPasswords++;
+            }
+        }
+
+        return badPasswords;
+    }
+
+    private boolean isVictim(int bucket, int alternateBucket, int fingerprint) {
+        return this.victimFingerprint == fingerprint &&
+               (this.victimBucket == bucket || this.victimBucket == alternateBucket);
+    }
+
+    /**
+     * Puts the fingerprint in an empty slot of the bucket, if there is one
+     * @param bucket The bucket index
+     * @param fingerprint The fingerprint
+     * @return Whether there was an empty slot
+     */
+    private boolean insertToBucket(int bucket, int fingerprint) {
+        long bucketValue = this.bucket(bucket);
+        int slot = this.findSlot(bucketValue, EMPTY);
+        if (slot >= 0) {
+            this.setBucket(bucket, this.setSlot(bucketValue, slot, fingerprint));
+        }
+
+        return slot >= 0;
+    }
+
+    /**
+     * Empties a slot of the bucket which holds the fingerprint, if there is one
+     * @param bucket The bucket index
+     * @param fingerprint The fingerprint
+     * @return Whether the fingerprint was in the bucket
+     */
+    private boolean deleteFromBucket(int bucket, int fingerprint) {
+        long bucketValue = this.bucket(bucket);
+        int slot = this.findSlot(bucketValue, fingerprint);
+        if (slot >= 0) {
+            this.setBucket(bucket, this.setSlot(bucketValue, slot, EMPTY));
+        }
+
+        return slot >= 0;
+    }
+
+    /**
+     * Returns the fingerprint of a key, which is never the empty fingerprint
+     * @param key The key
+     */
+    private int fingerprint(long key) {
+        int fingerprint = (int)(key & this.fingerprintMask);
+        return fingerprint != EMPTY ? fingerprint : 1;
+    }
+
+    /**
+     * Returns the bucket of a key, taken from other bits of the key than the fingerprint
+     * @param key The key
+     */
+    private int bucketOf(long key) {
+        return this.reduce(key >>> Integer.SIZE);
+    }
+
+    /**
+     * Returns the other bucket the fingerprint can be in, (h - bucket) mod the amount of buckets
+     * where h is a hash of the fingerprint. It is its own inverse, the alternate of the alternate
+     * bucket is the bucket, for any amount of buckets (not only a power of 2 like with xor).
+     * @param bucket The bucket index
+     * @param fingerprint The fingerprint
+     */
+    private int alternateBucket(int bucket, int fingerprint) {
+        int alternateBucket = this.reduce(Utils.mix(fingerprint) >>> Integer.SIZE) - bucket;
+        return alternateBucket >= 0 ? alternateBucket : alternateBucket + this.bucketsLength;
+    }
+
+    /**
+     * Maps 32 bits of a hash to a bucket index (multiply-shift instead of a modulo)
+     * @param hash The hash, in its low 32 bits
+     */
+    private int reduce(long hash) {
+        return (int)((hash * this.bucketsLength) >>> Integer.SIZE);
+    }
+
+    /**
+     * Returns the bits of the bucket, which may span two words
+     * @param bucket The bucket index
+     */
+    private long bucket(int bucket) {
+        long bitIndex = (long)bucket * this.bucketBits;
+        int word = (int)(bitIndex >>> 6);
+        int shift = (int)(bitIndex & (Long.SIZE - 1));
+        long value = this.words[word] >>> shift;
+        if (shift + this.bucketBits > Long.SIZE) {
+            value |= this.words[word + 1] << (Long.SIZE - shift);
+        }
+
+        return value & this.bucketMask;
+    }
+
+    /**
+     * Sets the bits of the bucket, which may span two words
+     * @param bucket The bucket index
+     * @param value The bits of the bucket
+     */
+    private void setBucket(int bucket, long value) {
+        long bitIndex = (long)bucket * this.bucketBits;
+        int word = (int)(bitIndex >>> 6);
+        int shift = (int)(bitIndex & (Long.SIZE - 1));
+        this.words[word] = (this.words[word] & ~(this.bucketMask << shift)) | (value << shift);
+        if (shift + this.bucketBits > Long.SIZE) {
+            int highShift = Long.SIZE - shift;
+            this.words[word + 1] = (this.words[word + 1] & ~(this.bucketMask >>> highShift)) | (value >>> highShift);
+        }
+    }
+
+    /**
+     * Returns whether one of the slots of the bucket holds the fingerprint
+     * @param bucket The bucket word
+     * @param fingerprint The fingerprint
+     */
+    private boolean hasFingerprint(long bucket, int fingerprint) {
+        return this.matchSlots(bucket, fingerprint) != 0;
+    }
+
+    /**
+     * Returns the first slot of the bucket which holds the fingerprint, or -1 if there isn't one
+     * @param bucket The bucket word
+     * @param fingerprint The fingerprint
+     */
+    private int findSlot(long bucket, int fingerprint) {
+        long matches = this.matchSlots(bucket, fingerprint);
+        return matches != 0 ? Long.numberOfTrailingZeros(matches) / this.fingerprintBits : -1;
+    }
+
+    /**
+     * Compares all of the slots of the bucket with the fingerprint at once.
+     * The slots which hold the fingerprint are 0 after xor-ing the bucket with the fingerprint
+     * in every slot, and (x - 1) & ~x has the highest bit on only for x = 0 (lowest matching
+     * slot is exact, a slot above a match might be reported as well, which findSlot ignores).
+     * @param bucket The bucket word
+     * @param fingerprint The fingerprint
+     * @return A word with the highest bit of each matching slot on
+     */
+    private long matchSlots(long bucket, int fingerprint) {
+        long x = bucket ^ (this.lowBits * fingerprint);
+        return (x - this.lowBits) & ~x & this.highBits;
+    }
+
+    private int getSlot(long bucket, int slot) {
+        return (int)((bucket >>> (slot * this.fingerprintBits)) & this.fingerprintMask);
+    }
+
+    private long setSlot(long bucket, int slot, int fingerprint) {
+        int shift = slot * this.fingerprintBits;
+        return (bucket & ~(this.fingerprintMask << shift)) | ((long)fingerprint << shift);
+    }
+
+    /**
+     * Returns the next non-negative number of a xorshift random generator
+     */
+    private long nextRandom() {
+        this.random ^= this.random << 13;
+        this.random ^= this.random >>> 7;
+        this.random ^= this.random << 17;
+        return this.random >>> 1;
+    }
+}
@@ -0,0 +1,89 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Derives all of the probes from two base hashes of the key
+ * (Kirsch-Mitzenmacher): g_i(key) = h1(key) + i * h2(key).
+ * The cost of computing the hashes doesn't grow with the amount of probes.
+ */
+class DoubleHashingProbeStrategy implements ProbeStrategy {
+    static final byte TYPE = 2;
+
+    private static final int HASH_BITS = 32;
+
+    /**
+     * Added to the key before mixing it, so the key 0 isn't mixed to 0
+     */
+    private static final long SEED = 0x9e3779b97f4a7c15L;
+
+    private final int m;
+    private final int k;
+
+    /**
+     * @param m The range of the probed indices
+     * @param k The amount of probes for each key
+     */
+    public DoubleHashingProbeStrategy(int m, int k) {
+        if (m <= 0) {
+            throw new RuntimeException("m must be a positive number.");
+        }
+        if (k <= 0) {
+            throw new RuntimeException("k must be a positive number.");
+        }
+
+        this.m = m;
+        this.k = k;
+    }
+
+    public int probes() {
+        return this.k;
+    }
+
+    public long base(long key) {
+        // h1 is the lower half and h2 is the upper half
+        return Utils.mix(key + SEED);
+    }
+
+    public int index(long base, int i) {
+        int h1 = (int)base;
+
+        // h2 must be odd, so the probes don't repeat themselves
+        int h2 = (int)(base >>> HASH_BITS) | 1;
+
+        // treat g_i as a fraction of 2^32 and scale it to the range
+        // (multiply-shift range reduction instead of modulo)
+        long g = (h1 + i * h2) & 0xffffffffL;
+        return (int)((g * this.m) >>> HASH_BITS);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        boolean equals = false;
+        if (obj instanceof DoubleHashingProbeStrategy) {
+            DoubleHashingProbeStrategy other = (DoubleHashingProbeStrategy)obj;
+            equals = this.m == other.m && this.k == other.k;
+        }
+
+        return equals;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * this.m + this.k;
+    }
+
+    public void write(DataOutputStream out) throws IOException {
+        out.writeByte(TYPE);
+        out.writeInt(this.k);
+    }
+
+    /**
+     * Reads the parameters of a strategy which were written by {@link #write}
+     * @param buffer The buffer to read from
+     * @param m The range of the probed indices
+     */
+    static DoubleHashingProbeStrategy read(ByteBuffer buffer, int m) {
+        return new DoubleHashingProbeStrategy(m, buffer.getInt());
+    }
+}
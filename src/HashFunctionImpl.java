@@ -13,8 +13,32 @@ class HashFunctionImpl implements HashFunction {
 		this.m1 = m1;
 	}
 	
+	int alpha() {
+		return this.alpha;
+	}
+
+	int beta() {
+		return this.beta;
+	}
+
 	public int hash(int k) {
 		// ((a*k + b) % p) % m1
 		return (((this.alpha * k) + this.beta) % Utils.p) % m1; 
 	}
+
+	@Override
+	public boolean equals(Object obj) {
+		boolean equals = false;
+		if (obj instanceof HashFunctionImpl) {
+			HashFunctionImpl other = (HashFunctionImpl)obj;
+			equals = this.alpha == other.alpha && this.beta == other.beta && this.m1 == other.m1;
+		}
+
+		return equals;
+	}
+
+	@Override
+	public int hashCode() {
+		return (31 * this.alpha + this.beta) * 31 + this.m1;
+	}
 }
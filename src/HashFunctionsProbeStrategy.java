@@ -0,0 +1,90 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Probes one bit for each hash function (as read from the hash functions file)
+ */
+class HashFunctionsProbeStrategy implements ProbeStrategy {
+    static final byte TYPE = 1;
+
+    private final HashFunction[] hashFunctions;
+
+    public HashFunctionsProbeStrategy(LinkedList<HashFunction> hashFunctions) {
+        if (hashFunctions == null) {
+            throw new RuntimeException("hashFunctions is null.");
+        }
+
+        // copy the list to an array, so probing doesn't walk links
+        int count = 0;
+        for (HashFunction ignored : hashFunctions) {
+            count++;
+        }
+
+        this.hashFunctions = new HashFunction[count];
+        int i = 0;
+        for (HashFunction hashFunction : hashFunctions) {
+            this.hashFunctions[i++] = hashFunction;
+        }
+    }
+
+    private HashFunctionsProbeStrategy(HashFunction[] hashFunctions) {
+        this.hashFunctions = hashFunctions;
+    }
+
+    public int probes() {
+        return this.hashFunctions.length;
+    }
+
+    public long base(long key) {
+        // every hash function works on the key modulo p, like a key of horner's rule (which is one already),
+        // so ((a*k + b) % p) % m is never negative, even for a 64 bit key
+        return Math.floorMod(key, (long)Utils.p);
+    }
+
+    public int index(long base, int i) {
+        return this.hashFunctions[i].hash((int)base);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof HashFunctionsProbeStrategy &&
+               Arrays.equals(this.hashFunctions, ((HashFunctionsProbeStrategy)obj).hashFunctions);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.hashFunctions);
+    }
+
+    public void write(DataOutputStream out) throws IOException {
+        out.writeByte(TYPE);
+        out.writeInt(this.hashFunctions.length);
+        for (HashFunction hashFunction : this.hashFunctions) {
+            if (!(hashFunction instanceof HashFunctionImpl)) {
+                throw new RuntimeException("only hash functions of the hash functions file can be written.");
+            }
+
+            HashFunctionImpl hashFunctionImpl = (HashFunctionImpl)hashFunction;
+            out.writeInt(hashFunctionImpl.alpha());
+            out.writeInt(hashFunctionImpl.beta());
+        }
+    }
+
+    /**
+     * Reads the parameters of a strategy which were written by {@link #write}
+     * @param buffer The buffer to read from
+     * @param m The range of the probed indices
+     */
+    static HashFunctionsProbeStrategy read(ByteBuffer buffer, int m) {
+        HashFunction[] hashFunctions = new HashFunction[buffer.getInt()];
+        for (int i = 0; i < hashFunctions.length; i++) {
+            int alpha = buffer.getInt();
+            int beta = buffer.getInt();
+            hashFunctions[i] = new HashFunctionImpl(alpha, beta, m);
+        }
+
+        return new HashFunctionsProbeStrategy(hashFunctions);
+    }
+}
@@ -1,5 +0,0 @@
-public class HashListElement extends Link<Integer> {
-    public HashListElement(int key) {
-        super(key);
-    }
-}
@@ -1,16 +1,102 @@
-public class HashTable {
-    private final int m2;
-    private final HashList[] table;
+/**
+ * A set of password keys, an open addressing hash table with linear probing over a flat int array.
+ * The keys are stored in the array itself (no per key objects and no boxing), so a lookup
+ * reads consecutive ints, usually of the same cache line.
+ * The table grows incrementally: when it is too full a table twice as long is allocated, and
+ * every insert moves a few slots of the old table to it, so no single insert moves all of the keys.
+ */
+public class HashTable implements PasswordSet {
+    /**
+     * 2^32 / golden ratio, used to spread the keys over the table
+     */
+    static final int GOLDEN_RATIO = 0x9e3779b9;
+
+    /**
+     * The fraction of the slots which are used when the table grows, so a table (even the old table
+     * while growing) always has empty slots to end the probes, which get long near a full table
+     */
+    static final double MAX_LOAD_FACTOR = 0.5;
+
+    /**
+     * The value of an empty slot. The key which is the same as it is not stored in the table,
+     * we only remember whether it was inserted.
+     */
+    static final int EMPTY = 0;
+
+    /**
+     * How many slots of the old table are moved to the table by each insert while growing.
+     * The moving is done after old length / MIGRATION_STEP inserts, before the (twice as long) table
+     * is half full and has to grow again, which takes at least old length / 2 inserts
+     * (so the step must be at least 2).
+     */
+    private static final int MIGRATION_STEP = 8;
+
+    private int[] table;
+
+    /**
+     * 32 - log2 of the length of the table, the length of the table is a power of 2
+     */
+    private int shift;
+
+    /**
+     * The table before the table grew, while its keys are being moved (null otherwise).
+     * Keys are only deleted from it, so a key which isn't in the table yet can still be found in it.
+     */
+    private int[] oldTable;
+    private int oldShift;
+
+    /**
+     * The amount of slots at the start of the old table which were moved already
+     */
+    private int migratedSlots;
+
+    /**
+     * The amount of keys in the table (not counting the empty key)
+     */
+    private int size;
+
+    private boolean containsEmptyKey;
+
+    /**
+     * Converts the passwords to keys, the table holds the lower 32 bits of the keys
+     */
+    private final PasswordHashFunction keyHashFunction;
 
     public HashTable(String m2) {
+        this(m2, new HornerPasswordHashFunction());
+    }
+
+    /**
+     * @param m2 The initial size of the table, it grows when needed
+     * @param keyHashFunction The hash function which converts the passwords to keys
+     * (horner's rule modulo p in the other constructor)
+     */
+    public HashTable(String m2, PasswordHashFunction keyHashFunction) {
+        if (keyHashFunction == null) {
+            throw new RuntimeException("keyHashFunction is null.");
+        }
+
+        this.keyHashFunction = keyHashFunction;
+        this.allocate(tableLength(parseM2(m2)));
+        this.oldTable = null;
+        this.size = 0;
+        this.containsEmptyKey = false;
+    }
+
+    static int parseM2(String m2) {
+        int parsedM2;
         try {
-            this.m2 = Integer.parseInt(m2);
+            parsedM2 = Integer.parseInt(m2);
         }
         catch (NumberFormatException e) {
             throw new RuntimeException("m2 is not a number.", e);
         }
 
-        this.table = new HashList[this.m2];
+        if (parsedM2 <= 0) {
+            throw new RuntimeException("m2 must be a positive number.");
+        }
+
+        return parsedM2;
     }
 
     public void updateTable(String filePath) {
@@ -18,40 +104,231 @@ public class HashTable {
     }
 
     public boolean contains(String password) {
-        int key = Utils.hornerPassword(password);
+        int key = this.key(password);
         return this.contains(key);
     }
 
     public boolean contains(int key) {
-        int hash = this.hashFunction(key);
-        HashList list = this.table[hash];
-        return list != null && list.contains(key);
+        if (key == EMPTY) {
+            return this.containsEmptyKey;
+        }
+
+        return containsInTable(this.table, this.shift, key) ||
+               (this.oldTable != null && containsInTable(this.oldTable, this.oldShift, key));
+    }
+
+    /**
+     * Returns whether the key is in the table
+     * @param table The table
+     * @param shift The shift of the table
+     * @param key The key, not the empty key
+     */
+    private static boolean containsInTable(int[] table, int shift, int key) {
+        int mask = table.length - 1;
+        for (int i = hashFunction(key, shift); ; i = (i + 1) & mask) {
+            int slot = table[i];
+            if (slot == key) {
+                return true;
+            }
+            if (slot == EMPTY) {
+                return false;
+            }
+        }
     }
 
     public void insert(String password) {
-        // convert the password to an integer using horner's rule
-        int key = Utils.hornerPassword(password);
-        int hash = this.hashFunction(key);
+        // convert the password to an integer key
+        int key = this.key(password);
+        this.insert(key);
+    }
+
+    /**
+     * Inserts the key to the table, if it isn't there already
+     * @param key The key
+     */
+    public void insert(int key) {
+        if (key == EMPTY) {
+            this.containsEmptyKey = true;
+            return;
+        }
 
-        HashList list;
-        // initialize a new list if we haven't yet
-        if (this.table[hash] == null) {
-            list = new HashList();
-            this.table[hash] = list;
+        if (this.oldTable != null) {
+            this.migrate(MIGRATION_STEP);
         }
-        else {
-            // we have a linked list already, get it
-            list = this.table[hash];
+
+        // a key of the old table which wasn't moved yet will be moved later
+        boolean inOldTable = this.oldTable != null && containsInTable(this.oldTable, this.oldShift, key);
+        if (!inOldTable && insertToTable(this.table, this.shift, key)) {
+            this.size++;
+            if (this.size >= this.table.length * MAX_LOAD_FACTOR) {
+                this.grow();
+            }
         }
+    }
+
+    public void deleteKeysFromTable(String filePath) {
+        Utils.iterateFileLines(filePath, password -> this.delete(password));
+    }
+
+    /**
+     * Deletes the password from the table
+     * @param password The password
+     * @return Whether the password was in the table (and therefore deleted)
+     */
+    public boolean delete(String password) {
+        int key = this.key(password);
+        return this.delete(key);
+    }
+
+    /**
+     * Deletes the key from the table
+     * @param key The key
+     * @return Whether the key was in the table (and therefore deleted)
+     */
+    public boolean delete(int key) {
+        if (key == EMPTY) {
+            boolean deleted = this.containsEmptyKey;
+            this.containsEmptyKey = false;
+            return deleted;
+        }
+
+        // a key which was moved already is in both tables
+        boolean deleted = this.deleteFromTable(this.table, this.shift, key);
+        if (this.oldTable != null) {
+            deleted |= this.deleteFromTable(this.oldTable, this.oldShift, key);
+        }
+
+        if (deleted) {
+            this.size--;
+        }
+
+        return deleted;
+    }
+
+    /**
+     * Removes the key from the table without leaving a tombstone (backward shift deletion).
+     * The keys after it in its run are moved back to the freed slot when their hash is not after it,
+     * so every key can still be reached from its hash without passing an empty slot.
+     * @param table The table
+     * @param shift The shift of the table
+     * @param key The key, not the empty key
+     * @return Whether the key was in the table
+     */
+    private boolean deleteFromTable(int[] table, int shift, int key) {
+        int mask = table.length - 1;
+        int hole = hashFunction(key, shift);
+        for (; table[hole] != key; hole = (hole + 1) & mask) {
+            if (table[hole] == EMPTY) {
+                return false;
+            }
+        }
+
+        for (int i = (hole + 1) & mask; table[i] != EMPTY; i = (i + 1) & mask) {
+            // the key can fill the hole if the hole is between its hash and its slot
+            int home = hashFunction(table[i], shift);
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                if (table == this.oldTable && i >= this.migratedSlots && hole < this.migratedSlots) {
+                    // the key moves to the part of the old table which was moved already, move it now
+                    insertToTable(this.table, this.shift, table[i]);
+                }
+
+                table[hole] = table[i];
+                hole = i;
+            }
+        }
+
+        table[hole] = EMPTY;
+        return true;
+    }
+
+    /**
+     * Puts the key in the first empty slot from its hash on, if it isn't there already
+     * @param table The table
+     * @param shift The shift of the table
+     * @param key The key, not the empty key
+     * @return Whether the key was inserted
+     */
+    private static boolean insertToTable(int[] table, int shift, int key) {
+        int mask = table.length - 1;
+        for (int i = hashFunction(key, shift); ; i = (i + 1) & mask) {
+            int slot = table[i];
+            if (slot == key) {
+                return false;
+            }
+            if (slot == EMPTY) {
+                table[i] = key;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Doubles the length of the table, the keys are moved to it by the next inserts
+     */
+    private void grow() {
+        if (this.oldTable != null) {
+            // shouldn't happen, the keys are moved faster than the table fills
+            this.migrate(this.oldTable.length);
+        }
+
+        this.oldTable = this.table;
+        this.oldShift = this.shift;
+        this.migratedSlots = 0;
+        this.allocate(this.oldTable.length * 2);
+    }
+
+    /**
+     * Moves the keys of the next slots of the old table to the table
+     * @param slots The amount of slots
+     */
+    private void migrate(int slots) {
+        int end = Math.min(this.migratedSlots + slots, this.oldTable.length);
+        for (int i = this.migratedSlots; i < end; i++) {
+            int key = this.oldTable[i];
+            if (key != EMPTY) {
+                insertToTable(this.table, this.shift, key);
+            }
+        }
+
+        this.migratedSlots = end;
+        if (end == this.oldTable.length) {
+            this.oldTable = null;
+        }
+    }
+
+    private void allocate(int length) {
+        if (length <= 0) {
+            throw new RuntimeException("the hash table is too big.");
+        }
+
+        this.table = new int[length];
+        this.shift = Integer.SIZE - Integer.numberOfTrailingZeros(length);
+    }
+
+    /**
+     * Returns the length of the table for the given size, the smallest power of 2 which is at least it
+     */
+    static int tableLength(int size) {
+        return size == 1 ? 2 : Integer.highestOneBit(size - 1) << 1;
+    }
 
-        // add a new element to the list
-        list.addLast(key);
+    /**
+     * Converts the password to its key
+     * @param password The password
+     */
+    private int key(String password) {
+        return (int)this.keyHashFunction.hash(password);
     }
 
-    private int hashFunction(int key) {
-        // use mod only on the positive part of key
-        // because we want a positive index
-        return (key & 0x7fffffff) % this.m2;
+    /**
+     * Returns the slot of the key in a table
+     * @param key The key
+     * @param shift 32 - log2 of the length of the table
+     */
+    static int hashFunction(int key, int shift) {
+        // multiplicative hashing, and then take the high bits to select the slot
+        // (fibonacci hashing, the length of the table is a power of 2)
+        return (key * GOLDEN_RATIO) >>> shift;
     }
 
     public String getSearchTime(String filePath) {
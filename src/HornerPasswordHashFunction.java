@@ -0,0 +1,28 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Converts a password to a key using horner's rule modulo p (see {@link Utils#hornerPassword(String)}).
+ * The keys are below p, so different passwords collide more as there are more passwords.
+ */
+class HornerPasswordHashFunction implements PasswordHashFunction {
+    static final byte TYPE = 1;
+
+    public long hash(String password) {
+        return Utils.hornerPassword(password);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof HornerPasswordHashFunction;
+    }
+
+    @Override
+    public int hashCode() {
+        return TYPE;
+    }
+
+    public void write(DataOutputStream out) throws IOException {
+        out.writeByte(TYPE);
+    }
+}
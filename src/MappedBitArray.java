@@ -0,0 +1,74 @@
+import java.nio.ByteBuffer;
+
+/**
+ * A read-only bit array whose words are read straight from a buffer
+ * (usually a memory mapped file), without copying them to the heap.
+ */
+public class MappedBitArray extends AbstractBitArray {
+    private final ByteBuffer buffer;
+
+    /**
+     * The offset of the first word in the buffer
+     */
+    private final int offset;
+    private final int wordsLength;
+
+    /**
+     * @param buffer The buffer holding the words
+     * @param offset The offset of the first word in the buffer
+     * @param length The length of the array, the amount of bits
+     */
+    public MappedBitArray(ByteBuffer buffer, int offset, int length) {
+        super(length);
+        if (buffer == null) {
+            throw new RuntimeException("buffer is null.");
+        }
+
+        this.wordsLength = getWordsLength(length);
+        if (offset < 0 || (long)offset + (long)this.wordsLength * Long.BYTES > buffer.limit()) {
+            throw new RuntimeException("the buffer is too small for the bit array.");
+        }
+
+        this.buffer = buffer;
+        this.offset = offset;
+    }
+
+    /**
+     * The array is read-only, always throws
+     */
+    @Override
+    public void set(int index, boolean value) {
+        throw new RuntimeException("the bit array is read-only.");
+    }
+
+    /**
+     * Returns whether the bit at the given index is 1 or 0.
+     * @param index The bit index
+     */
+    @Override
+    public boolean get(int index) {
+        validateIndex(index);
+        return (this.getWord(getWordIndex(index)) & getBitMask(index)) != FALSE;
+    }
+
+    @Override
+    protected int wordsLength() {
+        return this.wordsLength;
+    }
+
+    @Override
+    protected long getWord(int wordIndex) {
+        // absolute read, so the position of the buffer isn't shared between readers
+        return this.buffer.getLong(this.offset + wordIndex * Long.BYTES);
+    }
+
+    @Override
+    protected void orWord(int wordIndex, long word) {
+        throw new RuntimeException("the bit array is read-only.");
+    }
+
+    @Override
+    protected void andWord(int wordIndex, long word) {
+        throw new RuntimeException("the bit array is read-only.");
+    }
+}
@@ -0,0 +1,77 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * A fast 64 bit hash function of a family of hash functions (one for each seed).
+ * The password is consumed 64 bits (4 chars) at a time with multiplications and rotations,
+ * without any modulo, and the result is mixed so all of its bits are usable (for masking or
+ * multiply-shift range reduction). The chars of the password are hashed directly, so unlike
+ * horner's rule no byte array is allocated for the password.
+ */
+class MixPasswordHashFunction implements PasswordHashFunction {
+    static final byte TYPE = 2;
+
+    private static final int CHARS_PER_WORD = Long.SIZE / Character.SIZE;
+
+    private static final long PRIME_1 = 0x9e3779b185ebca87L;
+    private static final long PRIME_2 = 0xc2b2ae3d27d4eb4fL;
+    private static final long PRIME_3 = 0x85ebca77c2b2ae63L;
+
+    private final long seed;
+
+    public MixPasswordHashFunction(long seed) {
+        this.seed = seed;
+    }
+
+    public long hash(String password) {
+        if (password == null) {
+            throw new RuntimeException("password is null.");
+        }
+
+        int length = password.length();
+        long hash = this.seed + length * PRIME_1;
+
+        // the whole words
+        int i = 0;
+        for (; i + CHARS_PER_WORD <= length; i += CHARS_PER_WORD) {
+            long word = password.charAt(i) |
+                        (long)password.charAt(i + 1) << Character.SIZE |
+                        (long)password.charAt(i + 2) << (2 * Character.SIZE) |
+                        (long)password.charAt(i + 3) << (3 * Character.SIZE);
+            hash = round(hash, word);
+        }
+
+        // the last word, with the chars which are left (the length is already in the hash)
+        long word = 0;
+        for (int shift = 0; i < length; i++, shift += Character.SIZE) {
+            word |= (long)password.charAt(i) << shift;
+        }
+
+        return Utils.mix(round(hash, word));
+    }
+
+    /**
+     * Mixes a word of the password into the hash
+     * @param hash The hash so far
+     * @param word The word
+     */
+    private static long round(long hash, long word) {
+        hash ^= Long.rotateLeft(word * PRIME_2, 31) * PRIME_1;
+        return Long.rotateLeft(hash, 27) * PRIME_1 + PRIME_3;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof MixPasswordHashFunction && this.seed == ((MixPasswordHashFunction)obj).seed;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(this.seed);
+    }
+
+    public void write(DataOutputStream out) throws IOException {
+        out.writeByte(TYPE);
+        out.writeLong(this.seed);
+    }
+}
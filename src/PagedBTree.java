@@ -0,0 +1,540 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A B-tree of passwords whose nodes are pages of a file, so it can be much bigger than the memory.
+ * The pages are read through a buffer pool which keeps as many of them in memory as the memory budget
+ * allows, and t is the maximum t of nodes which fit in a page.
+ * The algorithms are the ones of BTree (splitting full nodes and fixing nodes holding the minimum
+ * amount of keys on the way down), each node is pinned only while it is used.
+ * Page 0 holds the header of the tree, so a tree can be opened again from its file.
+ */
+public class PagedBTree implements Closeable {
+    public static final int DEFAULT_PAGE_SIZE = 4096;
+    public static final int DEFAULT_MAX_PASSWORD_LENGTH = 64;
+
+    /**
+     * The minimum amount of pages in memory, an operation pins up to 4 pages at once
+     */
+    private static final int MIN_FRAMES = 8;
+
+    private static final int MAGIC = 0x42545245;
+    private static final int HEADER_PAGE = 0;
+    private static final int NO_PAGE = 0;
+
+    private final BufferPool pool;
+    private final int pageSize;
+    private final int maxPasswordLength;
+    private final int t;
+
+    private int rootPage;
+
+    /**
+     * The amount of pages in the file, including the header page
+     */
+    private int pagesAmount;
+
+    /**
+     * The first page of the list of pages which aren't used anymore, NO_PAGE if there are none
+     */
+    private int freePage;
+
+    /**
+     * Opens the tree in the file with the default page size and maximum password length,
+     * or creates it if the file is empty or doesn't exist
+     * @param filePath The path to the file of the tree
+     * @param memoryBudget The maximum amount of bytes of pages to keep in memory
+     */
+    public PagedBTree(String filePath, long memoryBudget) {
+        this(filePath, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PASSWORD_LENGTH, memoryBudget);
+    }
+
+    /**
+     * Opens the tree in the file, or creates it if the file is empty or doesn't exist
+     * @param filePath The path to the file of the tree
+     * @param pageSize The size of a page (and a node) in bytes
+     * @param maxPasswordLength The maximum length of a password, there is room for it in every key of a node
+     * @param memoryBudget The maximum amount of bytes of pages to keep in memory
+     */
+    public PagedBTree(String filePath, int pageSize, int maxPasswordLength, long memoryBudget) {
+        if (maxPasswordLength <= 0 || maxPasswordLength > Short.MAX_VALUE) {
+            throw new RuntimeException("maxPasswordLength must be in (0, " + Short.MAX_VALUE + "].");
+        }
+        if (pageSize <= 0 || PagedBTreeNode.maxT(pageSize, maxPasswordLength) < 2) {
+            throw new RuntimeException("a page is too small for a node with t of at least 2.");
+        }
+
+        long framesAmount = memoryBudget / pageSize;
+        if (framesAmount < MIN_FRAMES) {
+            throw new RuntimeException("the memory budget must hold at least " + MIN_FRAMES + " pages.");
+        }
+
+        this.pageSize = pageSize;
+        this.maxPasswordLength = maxPasswordLength;
+        this.t = PagedBTreeNode.maxT(pageSize, maxPasswordLength);
+
+        FileChannel channel = null;
+        long fileSize;
+        try {
+            channel = FileChannel.open(Paths.get(filePath),
+                                       StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+            fileSize = channel.size();
+        }
+        catch (IOException ex) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                }
+                catch (IOException closeEx) {
+                    ex.addSuppressed(closeEx);
+                }
+            }
+
+            throw new RuntimeException("could not open the file " + filePath + ".", ex);
+        }
+
+        this.pool = new BufferPool(channel, pageSize, (int)Math.min(framesAmount, Integer.MAX_VALUE));
+        try {
+            if (fileSize == 0) {
+                this.pagesAmount = HEADER_PAGE + 1;
+                this.freePage = NO_PAGE;
+                PagedBTreeNode root = allocateNode(true);
+                this.rootPage = root.page;
+                release(root);
+                writeHeader();
+            }
+            else {
+                readHeader();
+            }
+        }
+        catch (RuntimeException ex) {
+            // the tree isn't returned, so nothing else would close the file
+            // (no page of a file which isn't a tree was changed, so nothing is written to it)
+            try {
+                pool.close();
+            }
+            catch (RuntimeException closeEx) {
+                ex.addSuppressed(closeEx);
+            }
+
+            throw ex;
+        }
+    }
+
+    public int getT() {
+        return t;
+    }
+
+    public long getPageReads() {
+        return pool.getPageReads();
+    }
+
+    public long getPageWrites() {
+        return pool.getPageWrites();
+    }
+
+    public void insert(String password) {
+        rootInsert(password.toLowerCase());
+    }
+
+    /**
+     * Returns whether the password is in the tree,
+     * an ascii password is compared as if it was lower case instead of making a lower case copy of it
+     * @param password The password
+     */
+    public boolean contains(String password) {
+        boolean ignoreAsciiCase = BTree.isAscii(password);
+        String key = ignoreAsciiCase ? password : password.toLowerCase();
+        PagedBTreeNode node = node(rootPage);
+        while (true) {
+            int searchResult = node.localSearch(key, ignoreAsciiCase);
+            if (PagedBTreeNode.found(searchResult) || node.isLeaf()) {
+                release(node);
+                return PagedBTreeNode.found(searchResult);
+            }
+
+            int childPage = node.child(PagedBTreeNode.index(searchResult));
+            release(node);
+            node = node(childPage);
+        }
+    }
+
+    public void delete(String password) {
+        rootDelete(password.toLowerCase());
+    }
+
+    /**
+     * Writes the header and all of the changed pages to the file
+     */
+    public void flush() {
+        writeHeader();
+        pool.flush();
+    }
+
+    /**
+     * Writes the header and all of the changed pages to the file and closes it
+     */
+    @Override
+    public void close() {
+        writeHeader();
+        pool.close();
+    }
+
+    /**
+     * Inserts the key, should be called on the root only
+     * @param password The key to insert
+     */
+    private void rootInsert(String password) {
+        if (password.length() > maxPasswordLength) {
+            throw new RuntimeException("a password is longer than " + maxPasswordLength + " chars.");
+        }
+
+        PagedBTreeNode node = node(rootPage);
+
+        // if the root is full, we need to split it and make a new root
+        if (node.isFull()) {
+            PagedBTreeNode newRoot = allocateNode(false);
+            newRoot.setChild(0, node.page);
+            release(split(newRoot, 0, node));
+            release(node);
+            rootPage = newRoot.page;
+            node = newRoot;
+        }
+
+        // find the right leaf and insert there, splitting the full nodes on the way
+        while (!node.isLeaf()) {
+            int i = PagedBTreeNode.index(node.localSearch(password, false));
+            PagedBTreeNode child = node(node.child(i));
+            if (child.isFull()) {
+                PagedBTreeNode splitChild = split(node, i, child);
+                if (password.compareTo(node.key(i)) > 0) {
+                    release(child);
+                    child = splitChild;
+                }
+                else {
+                    release(splitChild);
+                }
+            }
+
+            release(node);
+            node = child;
+        }
+
+        node.insertKeyAt(PagedBTreeNode.index(node.localSearch(password, false)), password);
+        release(node);
+    }
+
+    /**
+     * Splits the child at the specified index of the node to 2 nodes
+     * @param node The node
+     * @param i The index of the child
+     * @param child The child (which is full)
+     * @return The new node, which is the child after the child
+     */
+    private PagedBTreeNode split(PagedBTreeNode node, int i, PagedBTreeNode child) {
+        PagedBTreeNode splitChild = allocateNode(child.isLeaf());
+        node.splitChild(i, child, splitChild);
+        return splitChild;
+    }
+
+    /**
+     * Deletes the key, should be called on the root only
+     * @param password The key to delete
+     */
+    private void rootDelete(String password) {
+        PagedBTreeNode node = node(rootPage);
+
+        // the root has a single key and both of its children hold the minimum amount of keys,
+        // the merged child is the new root
+        if (!node.isLeaf() && node.size() == 1) {
+            PagedBTreeNode leftChild = node(node.child(0));
+            PagedBTreeNode rightChild = node(node.child(1));
+            if (leftChild.needsKey() && rightChild.needsKey()) {
+                node.merge(0, leftChild, rightChild);
+                free(rightChild);
+                free(node);
+                rootPage = leftChild.page;
+                node = leftChild;
+            }
+            else {
+                release(leftChild);
+                release(rightChild);
+            }
+        }
+
+        deleteNotMinimumKeys(node, password);
+    }
+
+    /**
+     * Deletes the key from the subtree rooted at the node (knowing the node doesn't hold the minimum
+     * amount of keys, or it is the root), fixing the children holding the minimum amount of keys
+     * on the way down. Releases the node.
+     * @param node The node
+     * @param password The key to delete
+     */
+    private void deleteNotMinimumKeys(PagedBTreeNode node, String password) {
+        while (true) {
+            int searchResult = node.localSearch(password, false);
+            int i = PagedBTreeNode.index(searchResult);
+            if (node.isLeaf()) {
+                if (PagedBTreeNode.found(searchResult)) {
+                    node.removeKeyAt(i);
+                }
+
+                release(node);
+                return;
+            }
+
+            PagedBTreeNode child;
+            if (PagedBTreeNode.found(searchResult)) {
+                PagedBTreeNode leftChild = node(node.child(i));
+                PagedBTreeNode rightChild = node(node.child(i + 1));
+                if (!leftChild.needsKey()) {
+                    // replace the key with its predecessor, and delete the predecessor from the left child
+                    password = findMaximum(leftChild.page);
+                    node.setKey(i, password);
+                    release(rightChild);
+                    child = leftChild;
+                }
+                else if (!rightChild.needsKey()) {
+                    // replace the key with its successor, and delete the successor from the right child
+                    password = findMinimum(rightChild.page);
+                    node.setKey(i, password);
+                    release(leftChild);
+                    child = rightChild;
+                }
+                else {
+                    // merge with right child and delete the key from the merged child
+                    node.merge(i, leftChild, rightChild);
+                    free(rightChild);
+                    child = leftChild;
+                }
+            }
+            else {
+                child = node(node.child(i));
+                if (child.needsKey()) {
+                    child = fixChild(node, i, child);
+                }
+            }
+
+            release(node);
+            node = child;
+        }
+    }
+
+    /**
+     * Fixes the child at the specified index which holds the minimum amount of keys,
+     * by taking a key from one of its siblings or by merging it with one of them
+     * @param node The node
+     * @param i The child index
+     * @param child The child
+     * @return The child after the fix, which doesn't hold the minimum amount of keys
+     */
+    private PagedBTreeNode fixChild(PagedBTreeNode node, int i, PagedBTreeNode child) {
+        PagedBTreeNode leftSibling = i > 0 ? node(node.child(i - 1)) : null;
+        if (leftSibling != null && !leftSibling.needsKey()) {
+            node.shiftRight(i, child, leftSibling);
+            release(leftSibling);
+            return child;
+        }
+
+        PagedBTreeNode rightSibling = i < node.size() ? node(node.child(i + 1)) : null;
+        if (rightSibling != null && !rightSibling.needsKey()) {
+            node.shiftLeft(i, child, rightSibling);
+            release(rightSibling);
+            if (leftSibling != null) {
+                release(leftSibling);
+            }
+
+            return child;
+        }
+
+        // merge with left sibling, or with the right sibling if there is no left sibling
+        if (leftSibling != null) {
+            if (rightSibling != null) {
+                release(rightSibling);
+            }
+
+            node.merge(i - 1, leftSibling, child);
+            free(child);
+            return leftSibling;
+        }
+
+        node.merge(i, child, rightSibling);
+        free(rightSibling);
+        return child;
+    }
+
+    /**
+     * Returns the maximum key in the subtree rooted at the node (knowing it's not empty)
+     * @param page The page of the node
+     */
+    private String findMaximum(int page) {
+        PagedBTreeNode node = node(page);
+        while (!node.isLeaf()) {
+            int childPage = node.child(node.size());
+            release(node);
+            node = node(childPage);
+        }
+
+        String password = node.key(node.size() - 1);
+        release(node);
+        return password;
+    }
+
+    /**
+     * Returns the minimum key in the subtree rooted at the node (knowing it's not empty)
+     * @param page The page of the node
+     */
+    private String findMinimum(int page) {
+        PagedBTreeNode node = node(page);
+        while (!node.isLeaf()) {
+            int childPage = node.child(0);
+            release(node);
+            node = node(childPage);
+        }
+
+        String password = node.key(0);
+        release(node);
+        return password;
+    }
+
+    /**
+     * Pins the node in the page
+     * @param page The page
+     */
+    private PagedBTreeNode node(int page) {
+        return new PagedBTreeNode(pool, page, pool.pin(page), t, maxPasswordLength);
+    }
+
+    /**
+     * Unpins the node, it's written back to the file if it was changed
+     * @param node The node
+     */
+    private void release(PagedBTreeNode node) {
+        pool.unpin(node.frame, node.changed);
+    }
+
+    /**
+     * Makes a new empty node in a page which isn't used, or in a new page at the end of the file
+     * @param leaf Whether the node is a leaf
+     * @return The new node, pinned
+     */
+    private PagedBTreeNode allocateNode(boolean leaf) {
+        int page;
+        if (freePage != NO_PAGE) {
+            page = freePage;
+            PagedBTreeNode free = node(page);
+            freePage = free.child(0);
+            release(free);
+        }
+        else {
+            page = pagesAmount++;
+        }
+
+        PagedBTreeNode node = new PagedBTreeNode(pool, page, pool.pinNew(page), t, maxPasswordLength);
+        node.setLeaf(leaf);
+        return node;
+    }
+
+    /**
+     * Adds the page of the node to the list of pages which aren't used anymore, and releases it
+     * @param node The node, which isn't in the tree anymore
+     */
+    private void free(PagedBTreeNode node) {
+        node.setSize(0);
+        node.setChild(0, freePage);
+        freePage = node.page;
+        release(node);
+    }
+
+    private void writeHeader() {
+        int frame = pool.pin(HEADER_PAGE);
+        ByteBuffer header = pool.buffer(frame);
+        header.putInt(0, MAGIC);
+        header.putInt(Integer.BYTES, pageSize);
+        header.putInt(2 * Integer.BYTES, maxPasswordLength);
+        header.putInt(3 * Integer.BYTES, rootPage);
+        header.putInt(4 * Integer.BYTES, pagesAmount);
+        header.putInt(5 * Integer.BYTES, freePage);
+        pool.unpin(frame, true);
+    }
+
+    private void readHeader() {
+        int frame = pool.pin(HEADER_PAGE);
+        ByteBuffer header = pool.buffer(frame);
+        boolean matches = header.getInt(0) == MAGIC &&
+                          header.getInt(Integer.BYTES) == pageSize &&
+                          header.getInt(2 * Integer.BYTES) == maxPasswordLength;
+        rootPage = header.getInt(3 * Integer.BYTES);
+        pagesAmount = header.getInt(4 * Integer.BYTES);
+        freePage = header.getInt(5 * Integer.BYTES);
+        pool.unpin(frame, false);
+        if (!matches) {
+            throw new RuntimeException("the file is not a tree with this page size and maximum password length.");
+        }
+    }
+
+    /**
+     * Returns the string representation of the tree in the format of BTree
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        appendString(sb, rootPage, 0);
+        return sb.toString();
+    }
+
+    /**
+     * Appends the string representation of the subtree rooted at the node in the page
+     * to the specified string builder starting at the specified depth.
+     * The node is released before its children are appended, so only a single node is pinned at a time.
+     * @param sb The string builder to append to
+     * @param page The page of the node
+     * @param depth The depth of the node
+     */
+    private void appendString(StringBuilder sb, int page, int depth) {
+        PagedBTreeNode node = node(page);
+        boolean leaf = node.isLeaf();
+        String[] keys = new String[node.size()];
+        int[] children = new int[leaf ? 0 : keys.length + 1];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = node.key(i);
+        }
+        for (int i = 0; i < children.length; i++) {
+            children[i] = node.child(i);
+        }
+
+        release(node);
+        for (int i = 0; i < keys.length; i++) {
+            if (!leaf) {
+                appendString(sb, children[i], depth + 1);
+                sb.append(",");
+            }
+
+            sb.append(keys[i]).append("_").append(depth);
+            if (i < keys.length - 1 || !leaf) {
+                sb.append(",");
+            }
+        }
+        if (!leaf) {
+            appendString(sb, children[keys.length], depth + 1);
+        }
+    }
+
+    public void createFullTree(String filePath) {
+        Utils.iterateFileLines(filePath, password -> this.insert(password));
+    }
+
+    public String getSearchTime(String filePath) {
+        return Utils.getSearchTime(filePath, password -> contains(password));
+    }
+
+    public void deleteKeysFromTree(String filePath) {
+        Utils.iterateFileLines(filePath, password -> this.delete(password));
+    }
+}
@@ -0,0 +1,357 @@
+import java.nio.ByteBuffer;
+
+/**
+ * A node of a paged B-tree, which is a page of the file pinned in the buffer pool
+ * and is read and changed in place. The layout of the page is a leaf flag, the amount of keys,
+ * the page numbers of the 2t children and then 2t-1 key slots, each of them is the length of the
+ * key and its chars (there is room for the maximum length of a key in each slot).
+ */
+class PagedBTreeNode {
+    private static final int LEAF_OFFSET = 0;
+    private static final int SIZE_OFFSET = LEAF_OFFSET + 1;
+    private static final int CHILDREN_OFFSET = SIZE_OFFSET + Integer.BYTES;
+
+    final int page;
+    final int frame;
+    private final ByteBuffer buffer;
+    private final byte[] bytes;
+    private final int t;
+    private final int maxKeyLength;
+    private final int keysOffset;
+    private final int keySlotSize;
+
+    /**
+     * Whether the page was changed since it was pinned
+     */
+    boolean changed;
+
+    /**
+     * @param pool The buffer pool the page is pinned in
+     * @param page The page number
+     * @param frame The frame of the page
+     * @param t The t of the tree
+     * @param maxKeyLength The maximum length of a key
+     */
+    PagedBTreeNode(BufferPool pool, int page, int frame, int t, int maxKeyLength) {
+        this.page = page;
+        this.frame = frame;
+        this.buffer = pool.buffer(frame);
+        this.bytes = buffer.array();
+        this.t = t;
+        this.maxKeyLength = maxKeyLength;
+        this.keysOffset = CHILDREN_OFFSET + 2 * t * Integer.BYTES;
+        this.keySlotSize = keySlotSize(maxKeyLength);
+        this.changed = false;
+    }
+
+    private static int keySlotSize(int maxKeyLength) {
+        return Short.BYTES + maxKeyLength * Character.BYTES;
+    }
+
+    /**
+     * Returns the maximum t of nodes which fit in a page
+     * @param pageSize The size of a page in bytes
+     * @param maxKeyLength The maximum length of a key
+     */
+    static int maxT(int pageSize, int maxKeyLength) {
+        // CHILDREN_OFFSET + 2t * child + (2t - 1) * slot <= page size
+        int slot = keySlotSize(maxKeyLength);
+        return (pageSize - CHILDREN_OFFSET + slot) / (2 * (Integer.BYTES + slot));
+    }
+
+    public boolean isLeaf() {
+        return bytes[LEAF_OFFSET] != 0;
+    }
+
+    void setLeaf(boolean leaf) {
+        bytes[LEAF_OFFSET] = (byte)(leaf ? 1 : 0);
+        changed = true;
+    }
+
+    /**
+     * Returns the amount of keys this node holds
+     */
+    public int size() {
+        return buffer.getInt(SIZE_OFFSET);
+    }
+
+    void setSize(int n) {
+        buffer.putInt(SIZE_OFFSET, n);
+        changed = true;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public boolean isFull() {
+        return size() == 2 * t - 1;
+    }
+
+    /**
+     * Returns whether this node holds the minimum amount of keys a node which isn't the root can hold
+     */
+    public boolean needsKey() {
+        return size() == t - 1;
+    }
+
+    /**
+     * Returns the page of the child at the specified index
+     * @param i The index
+     */
+    int child(int i) {
+        return buffer.getInt(childOffset(i));
+    }
+
+    void setChild(int i, int page) {
+        buffer.putInt(childOffset(i), page);
+        changed = true;
+    }
+
+    /**
+     * Returns the key at the specified index
+     * @param i The index
+     */
+    String key(int i) {
+        int offset = keyOffset(i);
+        char[] chars = new char[buffer.getShort(offset)];
+        for (int j = 0; j < chars.length; j++) {
+            chars[j] = buffer.getChar(offset + Short.BYTES + j * Character.BYTES);
+        }
+
+        return new String(chars);
+    }
+
+    void setKey(int i, String password) {
+        if (password.length() > maxKeyLength) {
+            throw new RuntimeException("a password is longer than " + maxKeyLength + " chars.");
+        }
+
+        int offset = keyOffset(i);
+        buffer.putShort(offset, (short)password.length());
+        for (int j = 0; j < password.length(); j++) {
+            buffer.putChar(offset + Short.BYTES + j * Character.BYTES, password.charAt(j));
+        }
+
+        changed = true;
+    }
+
+    /**
+     * Compares the given key with the key at specified index without reading the key to a string,
+     * like String.compareTo
+     * @param password The key
+     * @param i The index of the key in this node
+     * @param ignoreAsciiCase Whether to compare the key as if its ascii letters were lower case
+     */
+    private int compareWithKeyAt(String password, int i, boolean ignoreAsciiCase) {
+        int offset = keyOffset(i);
+        int keyLength = buffer.getShort(offset);
+        int length = Math.min(password.length(), keyLength);
+        for (int j = 0; j < length; j++) {
+            char c1 = password.charAt(j);
+            if (ignoreAsciiCase && c1 >= 'A' && c1 <= 'Z') {
+                c1 += 'a' - 'A';
+            }
+
+            char c2 = buffer.getChar(offset + Short.BYTES + j * Character.BYTES);
+            if (c1 != c2) {
+                return c1 - c2;
+            }
+        }
+
+        return password.length() - keyLength;
+    }
+
+    /**
+     * Search only this node for the given key (without diving down to the children),
+     * with a binary search over the keys
+     * @param password The key to look for
+     * @param ignoreAsciiCase Whether to compare the key as if its ascii letters were lower case
+     * @return The first index from the left whose key is not smaller than the given key,
+     * if the key in that index is the given key. Otherwise -(the index + 1).
+     */
+    int localSearch(String password, boolean ignoreAsciiCase) {
+        int low = 0;
+        int high = size();
+        int compareResult = -1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int middleCompareResult = compareWithKeyAt(password, middle, ignoreAsciiCase);
+            if (middleCompareResult > 0) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+                compareResult = middleCompareResult;
+            }
+        }
+
+        return compareResult == 0 ? low : -(low + 1);
+    }
+
+    /**
+     * Returns whether a result of a local search is of a found key
+     * @param searchResult The result of the local search
+     */
+    static boolean found(int searchResult) {
+        return searchResult >= 0;
+    }
+
+    /**
+     * Returns the index of a result of a local search, the first index from the left
+     * whose key is not smaller than the key searched for
+     * @param searchResult The result of the local search
+     */
+    static int index(int searchResult) {
+        return searchResult >= 0 ? searchResult : -(searchResult + 1);
+    }
+
+    /**
+     * Inserts a key to this node at the specified index, shifting the keys after it to the right
+     * @param i The index
+     * @param password The key
+     */
+    void insertKeyAt(int i, String password) {
+        copyKeys(i + 1, this, i, size() - i);
+        setKey(i, password);
+        setSize(size() + 1);
+    }
+
+    /**
+     * Removes the key at the specified index from this node (knowing it's a leaf)
+     * @param i The index
+     */
+    void removeKeyAt(int i) {
+        copyKeys(i, this, i + 1, size() - i - 1);
+        setSize(size() - 1);
+    }
+
+    /**
+     * Splits the child at the specified index (knowing it's full) to 2 nodes
+     * @param i The index of the child
+     * @param child The child
+     * @param splitChild An empty node for the keys t+1,...,2t-1 of the child
+     */
+    void splitChild(int i, PagedBTreeNode child, PagedBTreeNode splitChild) {
+        splitChild.setLeaf(child.isLeaf());
+        splitChild.copyKeys(0, child, t, t - 1);
+        if (!child.isLeaf()) {
+            splitChild.copyChildren(0, child, t, t);
+        }
+
+        splitChild.setSize(t - 1);
+
+        // the middle key of the child goes right in between the child and the new node
+        copyChildren(i + 2, this, i + 1, size() - i);
+        setChild(i + 1, splitChild.page);
+        copyKeys(i + 1, this, i, size() - i);
+        copyKeys(i, child, t - 1, 1);
+        setSize(size() + 1);
+        child.setSize(t - 1);
+    }
+
+    /**
+     * Merges the child at the specified index with its right sibling,
+     * the page of the right sibling isn't used anymore
+     * @param i The child index
+     * @param leftChild The child
+     * @param rightChild The right sibling of the child
+     */
+    void merge(int i, PagedBTreeNode leftChild, PagedBTreeNode rightChild) {
+        int leftSize = leftChild.size();
+        int rightSize = rightChild.size();
+
+        // the key separating both children goes down between the keys of both children
+        leftChild.copyKeys(leftSize, this, i, 1);
+        leftChild.copyKeys(leftSize + 1, rightChild, 0, rightSize);
+        if (!leftChild.isLeaf()) {
+            leftChild.copyChildren(leftSize + 1, rightChild, 0, rightSize + 1);
+        }
+
+        leftChild.setSize(leftSize + 1 + rightSize);
+
+        copyKeys(i, this, i + 1, size() - i - 1);
+        copyChildren(i + 1, this, i + 2, size() - i - 1);
+        setSize(size() - 1);
+    }
+
+    /**
+     * Moves the last key (and child) of the left sibling of the child at specified index to the child,
+     * through the key separating them
+     * @param i The child index
+     * @param child The child
+     * @param leftSibling The left sibling of the child
+     */
+    void shiftRight(int i, PagedBTreeNode child, PagedBTreeNode leftSibling) {
+        int childSize = child.size();
+        int siblingSize = leftSibling.size();
+        child.copyKeys(1, child, 0, childSize);
+        child.copyKeys(0, this, i - 1, 1);
+        copyKeys(i - 1, leftSibling, siblingSize - 1, 1);
+        if (!child.isLeaf()) {
+            child.copyChildren(1, child, 0, childSize + 1);
+            child.copyChildren(0, leftSibling, siblingSize, 1);
+        }
+
+        child.setSize(childSize + 1);
+        leftSibling.setSize(siblingSize - 1);
+    }
+
+    /**
+     * Moves the first key (and child) of the right sibling of the child at specified index to the child,
+     * through the key separating them
+     * @param i The child index
+     * @param child The child
+     * @param rightSibling The right sibling of the child
+     */
+    void shiftLeft(int i, PagedBTreeNode child, PagedBTreeNode rightSibling) {
+        int childSize = child.size();
+        int siblingSize = rightSibling.size();
+        child.copyKeys(childSize, this, i, 1);
+        copyKeys(i, rightSibling, 0, 1);
+        rightSibling.copyKeys(0, rightSibling, 1, siblingSize - 1);
+        if (!child.isLeaf()) {
+            child.copyChildren(childSize + 1, rightSibling, 0, 1);
+            rightSibling.copyChildren(0, rightSibling, 1, siblingSize);
+        }
+
+        child.setSize(childSize + 1);
+        rightSibling.setSize(siblingSize - 1);
+    }
+
+    /**
+     * Copies key slots from a node (which may be this node) to this node
+     * @param to The index of the first slot to copy to
+     * @param from The node to copy from
+     * @param fromIndex The index of the first slot to copy
+     * @param count The amount of slots
+     */
+    private void copyKeys(int to, PagedBTreeNode from, int fromIndex, int count) {
+        if (count > 0) {
+            System.arraycopy(from.bytes, from.keyOffset(fromIndex), bytes, keyOffset(to), count * keySlotSize);
+            changed = true;
+        }
+    }
+
+    /**
+     * Copies children from a node (which may be this node) to this node
+     * @param to The index of the first child to copy to
+     * @param from The node to copy from
+     * @param fromIndex The index of the first child to copy
+     * @param count The amount of children
+     */
+    private void copyChildren(int to, PagedBTreeNode from, int fromIndex, int count) {
+        if (count > 0) {
+            System.arraycopy(from.bytes, from.childOffset(fromIndex), bytes, childOffset(to), count * Integer.BYTES);
+            changed = true;
+        }
+    }
+
+    private int childOffset(int i) {
+        return CHILDREN_OFFSET + i * Integer.BYTES;
+    }
+
+    private int keyOffset(int i) {
+        return keysOffset + i * keySlotSize;
+    }
+}
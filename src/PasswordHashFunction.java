@@ -0,0 +1,36 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * An interface that represents a hash function which converts a password to a key
+ */
+interface PasswordHashFunction {
+    long hash(String password);
+
+    /**
+     * Writes the type and the parameters of the hash function, so it can be read back by {@link #read}
+     * @param out The stream to write to
+     */
+    void write(DataOutputStream out) throws IOException;
+
+    /**
+     * Reads a hash function which was written by {@link #write}
+     * @param buffer The buffer to read from, positioned at the start of the hash function
+     */
+    static PasswordHashFunction read(ByteBuffer buffer) {
+        PasswordHashFunction hashFunction;
+        byte type = buffer.get();
+        if (type == HornerPasswordHashFunction.TYPE) {
+            hashFunction = new HornerPasswordHashFunction();
+        }
+        else if (type == MixPasswordHashFunction.TYPE) {
+            hashFunction = new MixPasswordHashFunction(buffer.getLong());
+        }
+        else {
+            throw new RuntimeException("unknown password hash function type.");
+        }
+
+        return hashFunction;
+    }
+}
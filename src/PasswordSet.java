@@ -0,0 +1,21 @@
+/**
+ * An interface that represents a set of passwords which can be searched,
+ * the hash tables of the passwords implement it
+ */
+interface PasswordSet {
+    /**
+     * Inserts all of the passwords in the file
+     * @param filePath The path to the file containing the passwords as lines
+     */
+    void updateTable(String filePath);
+
+    boolean contains(String password);
+
+    void insert(String password);
+
+    /**
+     * Returns the formatted time in milliseconds it takes to search all of the passwords in the file
+     * @param filePath The path to the file containing the passwords as lines
+     */
+    String getSearchTime(String filePath);
+}
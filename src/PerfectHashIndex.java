@@ -0,0 +1,285 @@
+/**
+ * A static index of the passwords, built once from all of them, for when the passwords are only
+ * queried after they are loaded. It is based on a minimal perfect hash function (CHD / PTHash style),
+ * which maps each of the n keys to a different slot of an array of exactly n slots,
+ * so the array holds the keys themselves without any collisions or probing.
+ * The keys are split between buckets of about 5 keys, and for each bucket we keep a number (its pilot)
+ * which places all of its keys in free slots. A lookup reads the pilot of the bucket and one slot.
+ * The pilots are found for a slightly longer array, in which the last keys find a free slot quickly,
+ * and the few keys which are placed after the first n slots are moved to the free slots among them.
+ */
+public class PerfectHashIndex {
+    /**
+     * The average amount of keys in a bucket, more keys in a bucket means less bits for the pilots
+     * but a longer search for them
+     */
+    private static final int BUCKET_SIZE = 5;
+
+    /**
+     * 2^64 / golden ratio, used to make a different hash of the key for each pilot
+     */
+    private static final long GOLDEN_RATIO = 0x9e3779b97f4a7c15L;
+
+    /**
+     * The fraction of the slots of the longer array which are used
+     */
+    private static final double LOAD_FACTOR = 0.99;
+
+    private final PasswordHashFunction keyHashFunction;
+
+    /**
+     * The keys, each in its slot
+     */
+    private final long[] slots;
+
+    /**
+     * The pilots of the buckets, packed with the least amount of bits which fits all of them
+     */
+    private final long[] pilots;
+    private final int pilotBits;
+    private final int bucketsLength;
+
+    /**
+     * The length of the longer array the keys are placed in by the pilots
+     */
+    private final int positionsLength;
+
+    /**
+     * The slot of each of the positions after the first n positions (which has a key)
+     */
+    private final int[] remap;
+
+    /**
+     * Initializes a new index of the passwords in the file
+     * @param filePath The path of the file of the passwords
+     */
+    public PerfectHashIndex(String filePath) {
+        this(filePath, new MixPasswordHashFunction(0));
+    }
+
+    /**
+     * Initializes a new index of the passwords in the file
+     * @param filePath The path of the file of the passwords
+     * @param keyHashFunction The hash function which converts the passwords to keys,
+     * passwords with the same key are considered the same password so it should have 64 good bits
+     */
+    public PerfectHashIndex(String filePath, PasswordHashFunction keyHashFunction) {
+        if (keyHashFunction == null) {
+            throw new RuntimeException("keyHashFunction is null.");
+        }
+
+        this.keyHashFunction = keyHashFunction;
+        long[] keys = Utils.readUniqueKeys(filePath, keyHashFunction);
+        this.slots = new long[keys.length];
+        this.bucketsLength = Math.max((keys.length + BUCKET_SIZE - 1) / BUCKET_SIZE, 1);
+        this.positionsLength = Math.max((int)Math.ceil(keys.length / LOAD_FACTOR), 1);
+        this.remap = new int[this.positionsLength - keys.length];
+
+        int[] pilots = this.build(keys);
+        int maxPilot = 0;
+        for (int pilot : pilots) {
+            maxPilot = Math.max(maxPilot, pilot);
+        }
+
+        this.pilotBits = Math.max(Integer.SIZE - Integer.numberOfLeadingZeros(maxPilot), 1);
+        this.pilots = new long[(int)(((long)pilots.length * this.pilotBits + Long.SIZE - 1) / Long.SIZE)];
+        for (int i = 0; i < pilots.length; i++) {
+            this.setPilot(i, pilots[i]);
+        }
+    }
+
+    /**
+     * Finds the pilots of the buckets and puts the keys in their slots.
+     * The buckets are placed from the biggest to the smallest, so the buckets which are harder
+     * to place are placed while most of the slots are still free.
+     * @param keys The keys, without duplicates
+     * @return The pilots of the buckets
+     */
+    private int[] build(long[] keys) {
+        // sort the keys by their buckets (counting sort)
+        int[] bucketStarts = new int[this.bucketsLength + 1];
+        for (long key : keys) {
+            bucketStarts[this.bucket(Utils.mix(key)) + 1]++;
+        }
+
+        int maxBucketSize = 0;
+        for (int i = 0; i < this.bucketsLength; i++) {
+            maxBucketSize = Math.max(maxBucketSize, bucketStarts[i + 1]);
+            bucketStarts[i + 1] += bucketStarts[i];
+        }
+
+        long[] bucketKeys = new long[keys.length];
+        int[] next = new int[this.bucketsLength];
+        System.arraycopy(bucketStarts, 0, next, 0, this.bucketsLength);
+        for (long key : keys) {
+            bucketKeys[next[this.bucket(Utils.mix(key))]++] = key;
+        }
+
+        // sort the buckets by their sizes, from the biggest (counting sort)
+        int[] sizeStarts = new int[maxBucketSize + 2];
+        for (int i = 0; i < this.bucketsLength; i++) {
+            sizeStarts[maxBucketSize - (bucketStarts[i + 1] - bucketStarts[i]) + 1]++;
+        }
+        for (int i = 0; i <= maxBucketSize; i++) {
+            sizeStarts[i + 1] += sizeStarts[i];
+        }
+
+        int[] bucketsOrder = new int[this.bucketsLength];
+        for (int i = 0; i < this.bucketsLength; i++) {
+            bucketsOrder[sizeStarts[maxBucketSize - (bucketStarts[i + 1] - bucketStarts[i])]++] = i;
+        }
+
+        int[] pilots = new int[this.bucketsLength];
+        long[] positionKeys = new long[this.positionsLength];
+        BitArray taken = new BitArray(this.positionsLength);
+        int[] positions = new int[maxBucketSize];
+        for (int bucket : bucketsOrder) {
+            int start = bucketStarts[bucket];
+            int size = bucketStarts[bucket + 1] - start;
+            if (size == 0) {
+                // the rest of the buckets are empty too
+                break;
+            }
+
+            int pilot = 0;
+            while (!this.tryPlace(bucketKeys, start, size, pilot, taken, positions)) {
+                pilot++;
+                if (pilot < 0) {
+                    throw new RuntimeException("failed to build the index.");
+                }
+            }
+
+            pilots[bucket] = pilot;
+            for (int i = 0; i < size; i++) {
+                taken.set(positions[i], true);
+                positionKeys[positions[i]] = bucketKeys[start + i];
+            }
+        }
+
+        // move the keys of the positions after the first n positions to the free slots
+        System.arraycopy(positionKeys, 0, this.slots, 0, this.slots.length);
+        int free = 0;
+        for (int position = this.slots.length; position < this.positionsLength; position++) {
+            if (taken.get(position)) {
+                while (taken.get(free)) {
+                    free++;
+                }
+
+                this.remap[position - this.slots.length] = free;
+                this.slots[free] = positionKeys[position];
+                free++;
+            }
+        }
+
+        return pilots;
+    }
+
+    /**
+     * Checks whether the pilot places all of the keys of a bucket in free slots, different from each other
+     * @param bucketKeys The keys, sorted by their buckets
+     * @param start The index of the first key of the bucket
+     * @param size The amount of keys in the bucket
+     * @param pilot The pilot
+     * @param taken Which slots are taken
+     * @param positions The array to put the slots of the keys in
+     */
+    private boolean tryPlace(long[] bucketKeys, int start, int size, int pilot, BitArray taken, int[] positions) {
+        for (int i = 0; i < size; i++) {
+            int position = this.position(Utils.mix(bucketKeys[start + i]), pilot);
+            if (taken.get(position)) {
+                return false;
+            }
+
+            for (int j = 0; j < i; j++) {
+                if (positions[j] == position) {
+                    return false;
+                }
+            }
+
+            positions[i] = position;
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns whether the password is in the index
+     * @param password The password
+     */
+    public boolean contains(String password) {
+        return this.indexOf(password) >= 0;
+    }
+
+    /**
+     * Returns the slot of the password, a different number in [0, amount of passwords) for each password
+     * @param password The password
+     * @return The slot, or -1 if the password isn't in the index
+     */
+    public int indexOf(String password) {
+        if (this.slots.length == 0) {
+            return -1;
+        }
+
+        long key = this.keyHashFunction.hash(password);
+        long hash = Utils.mix(key);
+        int position = this.position(hash, this.getPilot(this.bucket(hash)));
+        if (position >= this.slots.length) {
+            position = this.remap[position - this.slots.length];
+        }
+
+        return this.slots[position] == key ? position : -1;
+    }
+
+    public String getSearchTime(String filePath) {
+        return Utils.getSearchTime(filePath, password -> contains(password));
+    }
+
+    /**
+     * Returns the amount of bits the perfect hash function takes (the pilots and the moved positions)
+     * for each password
+     */
+    public double getFunctionBitsPerKey() {
+        long bits = (long)this.bucketsLength * this.pilotBits + (long)this.remap.length * Integer.SIZE;
+        return this.slots.length == 0 ? 0 : (double)bits / this.slots.length;
+    }
+
+    /**
+     * Returns the bucket of the hash, from its high bits (multiply-shift range reduction)
+     * @param hash The hash of the key
+     */
+    private int bucket(long hash) {
+        return (int)(((hash >>> Integer.SIZE) * this.bucketsLength) >>> Integer.SIZE);
+    }
+
+    /**
+     * Returns the position of the hash in the longer array for the pilot
+     * @param hash The hash of the key
+     * @param pilot The pilot of the bucket of the key
+     */
+    private int position(long hash, int pilot) {
+        long pilotHash = Utils.mix(hash ^ (pilot * GOLDEN_RATIO));
+        return (int)(((pilotHash >>> Integer.SIZE) * this.positionsLength) >>> Integer.SIZE);
+    }
+
+    private int getPilot(int bucket) {
+        long bitIndex = (long)bucket * this.pilotBits;
+        int wordIndex = (int)(bitIndex >>> 6);
+        int offset = (int)(bitIndex & (Long.SIZE - 1));
+        long value = this.pilots[wordIndex] >>> offset;
+        if (offset + this.pilotBits > Long.SIZE) {
+            value |= this.pilots[wordIndex + 1] << (Long.SIZE - offset);
+        }
+
+        return (int)(value & ((1L << this.pilotBits) - 1));
+    }
+
+    private void setPilot(int bucket, int pilot) {
+        long bitIndex = (long)bucket * this.pilotBits;
+        int wordIndex = (int)(bitIndex >>> 6);
+        int offset = (int)(bitIndex & (Long.SIZE - 1));
+        this.pilots[wordIndex] |= (long)pilot << offset;
+        if (offset + this.pilotBits > Long.SIZE) {
+            this.pilots[wordIndex + 1] |= (long)pilot >>> (Long.SIZE - offset);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * An interface that represents the way a bloom filter derives the bits it probes for a key.
+ * The work which is shared by all of the probes of a key is done once by {@link #base(long)},
+ * so each probe only pays for {@link #index(long, int)}.
+ */
+interface ProbeStrategy {
+    /**
+     * Returns the amount of bits probed for each key
+     */
+    int probes();
+
+    /**
+     * Digests the key to a value which all of the probes of the key are derived from
+     * @param key The key
+     */
+    long base(long key);
+
+    /**
+     * Returns the index of a probed bit
+     * @param base The value returned from {@link #base(long)} for the key
+     * @param i The probe number, between 0 and probes() - 1
+     */
+    int index(long base, int i);
+
+    /**
+     * Writes the type and the parameters of the strategy, so it can be read back by {@link #read}
+     * @param out The stream to write to
+     */
+    void write(DataOutputStream out) throws IOException;
+
+    /**
+     * Reads a strategy which was written by {@link #write}
+     * @param buffer The buffer to read from, positioned at the start of the strategy
+     * @param m The range of the probed indices
+     */
+    static ProbeStrategy read(ByteBuffer buffer, int m) {
+        ProbeStrategy probeStrategy;
+        byte type = buffer.get();
+        if (type == HashFunctionsProbeStrategy.TYPE) {
+            probeStrategy = HashFunctionsProbeStrategy.read(buffer, m);
+        }
+        else if (type == DoubleHashingProbeStrategy.TYPE) {
+            probeStrategy = DoubleHashingProbeStrategy.read(buffer, m);
+        }
+        else {
+            throw new RuntimeException("unknown probe strategy type.");
+        }
+
+        return probeStrategy;
+    }
+}
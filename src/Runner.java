@@ -7,15 +7,17 @@ public class Runner {
 
 	//Arguments you program should expect:
 	//1. m1 (the size of the Bloom-Filter's table).
-	//2. m2 (the size of expected hash table with chaining).
+	//2. m2 (the initial size of the hash table).
 	//3. t (the value for BTree).
+	//4. (optional) "counting" to use a counting Bloom-Filter, which the deletions are applied to as well.
 	//Note that the files used (hash_functions.txt,bad_passwords.txt,requested_passwords.txt) 
 	//should be located in the same location as your src folder.
 	
 	public static void main(String[] args) {
 
 		//Create the Bloom Filter.
-		BloomFilter bloomFilter = contructBloomFilter(args[0]);
+		boolean counting = args.length > 3 && args[3].equals("counting");
+		BloomFilter bloomFilter = counting ? contructCountingBloomFilter(args[0]) : contructBloomFilter(args[0]);
 				
 		//Create the Hash Table.
 		HashTable hashTable = contructHashTable(args[1]);
@@ -39,6 +41,14 @@ public class Runner {
 		//Get the DFS representation of the btree, after performing deletions
 		String treeLayoutAfterDeletions = deleteKeysFromTree(btree);
 
+		//Perform the deletions on the Bloom Filter as well, when it supports them
+		if (counting) {
+			deleteKeysFromFilter((CountingBloomFilter)bloomFilter);
+		}
+
+		//Perform the deletions on the Hash Table as well, to keep it in sync with the B tree
+		deleteKeysFromTable(hashTable);
+
 		//Create a file with the program's expected output
 		createOutputFile(falsePositivesPercent, rejectedPasswordsAmount, treeLayout, searchTime, treeLayoutAfterDeletions, System.getProperty("user.dir")+"/output.txt");
 	    
@@ -52,6 +62,13 @@ public class Runner {
 		return bloomFilter;
 	}
 
+	private static CountingBloomFilter contructCountingBloomFilter(String m1) {
+		CountingBloomFilter bloomFilter = new CountingBloomFilter(m1, System.getProperty("user.dir")+"/hash_functions.txt");
+		//update the Bloom Filter's table with the bad passwords
+		bloomFilter.updateTable(System.getProperty("user.dir")+"/bad_passwords.txt");
+		return bloomFilter;
+	}
+
 	private static HashTable contructHashTable(String m2) {
 		HashTable hashTable = new HashTable(m2);
 		//update the Hash Table with the bad passwords
@@ -80,6 +97,14 @@ public class Runner {
 		return btree.toString();
 	}
 
+	private static void deleteKeysFromFilter(CountingBloomFilter bloomFilter) {
+		bloomFilter.deleteKeysFromFilter(System.getProperty("user.dir")+"/delete_keys.txt");
+	}
+
+	private static void deleteKeysFromTable(HashTable hashTable) {
+		hashTable.deleteKeysFromTable(System.getProperty("user.dir")+"/delete_keys.txt");
+	}
+
 	//Creates a file with the program's expected output
 	private static void createOutputFile(String falsePositivesPercent, String rejectedPasswordsAmount, String treeLayout, String searchTime, String treeLayoutAfterDeletions, String pathToOutput) {
 		Path path = Paths.get(pathToOutput);
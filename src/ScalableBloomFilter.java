@@ -0,0 +1,177 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * A bloom filter which grows with the amount of inserted passwords.
+ * It's made of a chain of bloom filters, and when the fill ratio of the last filter
+ * crosses a threshold a new, bigger filter with a tighter false positive rate is added.
+ * The false positive rates of the filters form a geometric series whose sum
+ * is the target false positive rate, so the rate of the whole chain stays below it.
+ */
+public class ScalableBloomFilter {
+    /**
+     * The fill ratio of a filter which is at its capacity (with the optimal amount of probes)
+     */
+    private static final double FILL_RATIO_THRESHOLD = 0.5;
+
+    /**
+     * The capacity of each filter relative to the previous one
+     */
+    private static final int GROWTH_FACTOR = 2;
+
+    /**
+     * The false positive rate of each filter relative to the previous one
+     */
+    private static final double TIGHTENING_RATIO = 0.5;
+
+    /**
+     * How many times the fill ratio is checked until a filter reaches its capacity,
+     * the fill ratio is counted over the whole filter so we don't check it on every insert
+     */
+    private static final int CHECKS_PER_CAPACITY = 16;
+
+    private final LinkedList<BloomFilter> filters;
+    private BloomFilter current;
+    private int currentCapacity;
+    private double currentFalsePositiveRate;
+    private int insertsUntilCheck;
+
+    /**
+     * Initializes a new scalable bloom filter
+     * @param initialCapacity The amount of passwords the first filter is sized for
+     * @param falsePositiveRate The target false positive rate, between 0 and 1 (exclusive)
+     */
+    public ScalableBloomFilter(int initialCapacity, double falsePositiveRate) {
+        if (initialCapacity <= 0) {
+            throw new RuntimeException("initialCapacity must be a positive number.");
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new RuntimeException("falsePositiveRate must be between 0 and 1.");
+        }
+
+        this.filters = new LinkedList<>();
+        this.currentCapacity = initialCapacity;
+
+        // p_0 = p*(1-r), so p_0 + p_0*r + p_0*r^2 + ... = p
+        this.currentFalsePositiveRate = falsePositiveRate * (1 - TIGHTENING_RATIO);
+        this.addFilter();
+    }
+
+    public void updateTable(String filePath) {
+        Utils.iterateFileLines(filePath, password -> this.insert(password));
+    }
+
+    /**
+     * Inserts a new password to the bloom filter
+     * @param password The password
+     */
+    public void insert(String password) {
+        this.current.insert(password);
+
+        this.insertsUntilCheck--;
+        if (this.insertsUntilCheck <= 0) {
+            if (this.current.getFillRatio() >= FILL_RATIO_THRESHOLD) {
+                this.currentCapacity = (int)Math.min((long)this.currentCapacity * GROWTH_FACTOR, Integer.MAX_VALUE);
+                this.currentFalsePositiveRate *= TIGHTENING_RATIO;
+                this.addFilter();
+            }
+            else {
+                this.insertsUntilCheck = this.checkInterval();
+            }
+        }
+    }
+
+    /**
+     * Returns whether the password is in the bloom filter
+     * @param password The password
+     */
+    public boolean contains(String password) {
+        boolean contains = false;
+        for (BloomFilter filter : this.filters) {
+            if (filter.contains(password)) {
+                contains = true;
+                break;
+            }
+        }
+
+        return contains;
+    }
+
+    /**
+     * Returns the amount of filters in the chain
+     */
+    public int getFiltersAmount() {
+        int amount = 0;
+        for (BloomFilter ignored : this.filters) {
+            amount++;
+        }
+
+        return amount;
+    }
+
+    /**
+     * Estimates the amount of distinct passwords inserted to the filters
+     * (see {@link BloomFilter#getEstimatedItemsAmount()})
+     */
+    public long getEstimatedItemsAmount() {
+        long estimate = 0;
+        for (BloomFilter filter : this.filters) {
+            estimate += filter.getEstimatedItemsAmount();
+            if (estimate < 0) {
+                // overflow, one of the filters is saturated
+                estimate = Long.MAX_VALUE;
+                break;
+            }
+        }
+
+        return estimate;
+    }
+
+    /**
+     * Returns the false positive rate expected from the current fill ratios of the filters,
+     * a password is a false positive if it is a false positive of any of the filters
+     */
+    public double getTheoreticalFalsePositiveRate() {
+        double notFalsePositive = 1;
+        for (BloomFilter filter : this.filters) {
+            notFalsePositive *= 1 - filter.getTheoreticalFalsePositiveRate();
+        }
+
+        return 1 - notFalsePositive;
+    }
+
+    public String getRejectedPasswordsAmount(String filePath) {
+        return Utils.consumeFileReader(filePath, reader -> getRejectedPasswordsAmount(reader)).toString();
+    }
+
+    /**
+     * Returns the amount of passwords rejected by this bloom filter
+     * @param reader The reader of the file
+     */
+    private int getRejectedPasswordsAmount(BufferedReader reader) throws IOException {
+        int badPasswords = 0;
+
+        String password;
+        while ((password = reader.readLine()) != null) {
+            if (this.contains(password)) {
+                badPasswords++;
+            }
+        }
+
+        return badPasswords;
+    }
+
+    /**
+     * Adds a new filter with the current capacity and false positive rate
+     * to the end of the chain, new passwords are inserted to it
+     */
+    private void addFilter() {
+        this.current = BloomFilter.create(this.currentCapacity, this.currentFalsePositiveRate);
+        this.filters.addLast(this.current);
+        this.insertsUntilCheck = this.checkInterval();
+    }
+
+    private int checkInterval() {
+        return Math.max(1, this.currentCapacity / CHECKS_PER_CAPACITY);
+    }
+}
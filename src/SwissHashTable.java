@@ -0,0 +1,241 @@
+import java.util.Arrays;
+
+/**
+ * A hash table of password keys which checks a whole group of slots in each probe (a swiss table).
+ * Each slot has a control byte: 7 bits of the hash of its key, or EMPTY.
+ * The control bytes of a group of 8 slots are a single long, so a probe compares the 7 bits
+ * of the key with all of the 8 control bytes at once using plain long arithmetic (SWAR),
+ * and reads only the keys of the slots whose control byte matched.
+ * The groups are probed quadratically (1, 2, 3, ... groups after the previous one).
+ * There is no deletion, a deleted slot in a full group would have to be left as a tombstone
+ * since probes of other keys may have passed through the group.
+ */
+public class SwissHashTable implements PasswordSet {
+    private static final int GROUP_SLOTS = Long.BYTES;
+    private static final int GROUP_SHIFT = 3;
+
+    /**
+     * A word with 1 in the lowest / highest bit of each byte
+     */
+    private static final long LOW_BITS = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    /**
+     * The control byte of an empty slot, the control bytes of full slots have the highest bit off
+     */
+    private static final long EMPTY_CONTROL = 0x80;
+    private static final long EMPTY_GROUP = EMPTY_CONTROL * LOW_BITS;
+    private static final int TAG_MASK = 0x7f;
+
+    /**
+     * The fraction of the slots which may be used before the table grows,
+     * a probe checks 8 slots at once so the table can be fuller than one with linear probing
+     */
+    private static final double SWISS_MAX_LOAD_FACTOR = 0.875;
+
+    /**
+     * The control bytes, a word for each group
+     */
+    private long[] controls;
+    private int[] keys;
+
+    /**
+     * The amount of keys in the table
+     */
+    private int size;
+
+    /**
+     * Converts the passwords to keys, the table holds the lower 32 bits of the keys
+     */
+    private final PasswordHashFunction keyHashFunction;
+
+    public SwissHashTable(String m2) {
+        this(m2, new HornerPasswordHashFunction());
+    }
+
+    /**
+     * @param m2 The initial size of the table, it grows when needed
+     * @param keyHashFunction The hash function which converts the passwords to keys
+     * (horner's rule modulo p in the other constructor)
+     */
+    public SwissHashTable(String m2, PasswordHashFunction keyHashFunction) {
+        if (keyHashFunction == null) {
+            throw new RuntimeException("keyHashFunction is null.");
+        }
+
+        this.keyHashFunction = keyHashFunction;
+        this.allocate(HashTable.tableLength(Math.max(HashTable.parseM2(m2) >>> GROUP_SHIFT, 1)));
+        this.size = 0;
+    }
+
+    public void updateTable(String filePath) {
+        Utils.iterateFileLines(filePath, password -> this.insert(password));
+    }
+
+    public boolean contains(String password) {
+        int key = this.key(password);
+        return this.contains(key);
+    }
+
+    public boolean contains(int key) {
+        long hash = Utils.mix(key);
+        long tag = tag(hash);
+        int mask = this.controls.length - 1;
+        int group = this.group(hash);
+        for (int step = 1; ; step++) {
+            long controls = this.controls[group];
+            for (long matches = matchTag(controls, tag); matches != 0; matches &= matches - 1) {
+                if (this.keys[slot(group, matches)] == key) {
+                    return true;
+                }
+            }
+
+            if (matchEmpty(controls) != 0) {
+                return false;
+            }
+
+            group = (group + step) & mask;
+        }
+    }
+
+    public void insert(String password) {
+        int key = this.key(password);
+        this.insert(key);
+    }
+
+    /**
+     * Inserts the key to the table, if it isn't there already
+     * @param key The key
+     */
+    public void insert(int key) {
+        long hash = Utils.mix(key);
+        long tag = tag(hash);
+        int mask = this.controls.length - 1;
+        int group = this.group(hash);
+        for (int step = 1; ; step++) {
+            long controls = this.controls[group];
+            for (long matches = matchTag(controls, tag); matches != 0; matches &= matches - 1) {
+                if (this.keys[slot(group, matches)] == key) {
+                    return;
+                }
+            }
+
+            long empty = matchEmpty(controls);
+            if (empty != 0) {
+                // the key isn't in the table, and this is the first group with an empty slot
+                this.put(slot(group, empty), tag, key);
+                break;
+            }
+
+            group = (group + step) & mask;
+        }
+
+        this.size++;
+        if (this.size > this.controls.length * GROUP_SLOTS * SWISS_MAX_LOAD_FACTOR) {
+            this.grow();
+        }
+    }
+
+    public String getSearchTime(String filePath) {
+        return Utils.getSearchTime(filePath, password -> contains(password));
+    }
+
+    /**
+     * Converts the password to its key
+     * @param password The password
+     */
+    private int key(String password) {
+        return (int)this.keyHashFunction.hash(password);
+    }
+
+    /**
+     * Doubles the amount of groups, and inserts all of the keys again
+     */
+    private void grow() {
+        long[] oldControls = this.controls;
+        int[] oldKeys = this.keys;
+        this.allocate(oldControls.length * 2);
+        int mask = this.controls.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if ((oldControls[i >>> GROUP_SHIFT] & (EMPTY_CONTROL << slotShift(i))) == 0) {
+                int key = oldKeys[i];
+                long hash = Utils.mix(key);
+                int group = this.group(hash);
+                long empty;
+                for (int step = 1; (empty = matchEmpty(this.controls[group])) == 0; step++) {
+                    group = (group + step) & mask;
+                }
+
+                this.put(slot(group, empty), tag(hash), key);
+            }
+        }
+    }
+
+    private void allocate(int groups) {
+        if (groups <= 0 || groups > Integer.MAX_VALUE / GROUP_SLOTS) {
+            throw new RuntimeException("the hash table is too big.");
+        }
+
+        this.controls = new long[groups];
+        Arrays.fill(this.controls, EMPTY_GROUP);
+        this.keys = new int[groups * GROUP_SLOTS];
+    }
+
+    private void put(int slot, long tag, int key) {
+        int shift = slotShift(slot);
+        int group = slot >>> GROUP_SHIFT;
+        this.controls[group] = (this.controls[group] & ~(0xffL << shift)) | (tag << shift);
+        this.keys[slot] = key;
+    }
+
+    /**
+     * Returns the first group to probe for the hash, from its high bits
+     * @param hash The hash of the key
+     */
+    private int group(long hash) {
+        return (int)(((hash >>> Integer.SIZE) * this.controls.length) >>> Integer.SIZE);
+    }
+
+    /**
+     * Returns the 7 bits of the hash which are kept in the control byte, from its low bits
+     * @param hash The hash of the key
+     */
+    private static long tag(long hash) {
+        return hash & TAG_MASK;
+    }
+
+    /**
+     * Returns the slot of the lowest byte of the group which is on in the matches
+     * @param group The group
+     * @param matches A word with the highest bit on of each matching control byte
+     */
+    private static int slot(int group, long matches) {
+        return (group << GROUP_SHIFT) | (Long.numberOfTrailingZeros(matches) >>> GROUP_SHIFT);
+    }
+
+    private static int slotShift(int slot) {
+        return (slot & (GROUP_SLOTS - 1)) << GROUP_SHIFT;
+    }
+
+    /**
+     * Compares all of the control bytes of the group with the tag at once.
+     * The bytes which are the tag are 0 after xor-ing the controls with the tag in every byte,
+     * and (x - 1) & ~x has the highest bit on only for x = 0 (a byte above a match might be
+     * reported as well, the keys of the reported slots are compared anyway).
+     * @param controls The control bytes of the group
+     * @param tag The tag
+     * @return A word with the highest bit on of each matching control byte
+     */
+    private static long matchTag(long controls, long tag) {
+        long x = controls ^ (LOW_BITS * tag);
+        return (x - LOW_BITS) & ~x & HIGH_BITS;
+    }
+
+    /**
+     * Returns a word with the highest bit on of each empty control byte of the group
+     * @param controls The control bytes of the group
+     */
+    private static long matchEmpty(long controls) {
+        return controls & HIGH_BITS;
+    }
+}
@@ -1,6 +1,12 @@
 import java.io.*;
 import java.text.DecimalFormat;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
 class Utils {
     static final int p = 15486907;
@@ -47,6 +53,22 @@ class Utils {
         return (int)horner;
     }
 
+    /**
+     * Mixes the bits of the key so every bit of the result depends on every bit of the key
+     * (the finalizer of MurmurHash3)
+     * @param key The key
+     * @return A 64 bit hash of the key
+     */
+    static long mix(long key) {
+        long hash = key;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
     /**
      * Perform an action on file reader of the file at the specified path.
      * The function rethrows any IO exception as wrapping RuntimeException
@@ -111,6 +133,221 @@ class Utils {
         });
     }
 
+    /**
+     * Reads the keys of the passwords in the file
+     * @param filePath The file path
+     * @param keyHashFunction The hash function which converts the passwords to keys
+     * @return The keys, sorted and without duplicates
+     */
+    static long[] readUniqueKeys(String filePath, final PasswordHashFunction keyHashFunction) {
+        if (keyHashFunction == null) {
+            throw new RuntimeException("keyHashFunction is null.");
+        }
+
+        final long[][] keys = { new long[1024] };
+        final int[] size = { 0 };
+        iterateFileLines(filePath, password -> {
+            if (size[0] == keys[0].length) {
+                keys[0] = Arrays.copyOf(keys[0], keys[0].length * 2);
+            }
+
+            keys[0][size[0]++] = keyHashFunction.hash(password);
+        });
+
+        Arrays.sort(keys[0], 0, size[0]);
+        int unique = 0;
+        for (int i = 0; i < size[0]; i++) {
+            if (unique == 0 || keys[0][i] != keys[0][unique - 1]) {
+                keys[0][unique++] = keys[0][i];
+            }
+        }
+
+        return Arrays.copyOf(keys[0], unique);
+    }
+
+    /**
+     * Reads all of the lines of the file at the specified path
+     * @param filePath The file path
+     */
+    static String[] readFileLines(String filePath) {
+        return consumeFileReader(filePath, reader -> reader.lines().toArray(String[]::new));
+    }
+
+    /**
+     * Reads the next lines of the reader to the array, as many as fit in it
+     * @param reader The reader
+     * @param lines The array to read the lines to
+     * @return The amount of lines read, 0 when there are no more lines
+     */
+    static int readLines(BufferedReader reader, String[] lines) throws IOException {
+        int count = 0;
+        String line;
+        while (count < lines.length && (line = reader.readLine()) != null) {
+            lines[count++] = line;
+        }
+
+        return count;
+    }
+
+    /**
+     * Splits the file at the specified path to ranges of whole lines of about the same size
+     * @param filePath The file path
+     * @param parts The amount of ranges
+     * @return The byte offsets of the ranges, range i is [offsets[i], offsets[i + 1])
+     */
+    static long[] splitFileLines(String filePath, int parts) {
+        checkFilePath(filePath);
+        if (parts <= 0) {
+            throw new RuntimeException("parts must be a positive number.");
+        }
+
+        long[] offsets = new long[parts + 1];
+        try (RandomAccessFile file = new RandomAccessFile(filePath, "r")) {
+            long length = file.length();
+            offsets[parts] = length;
+            for (int i = 1; i < parts; i++) {
+                // move the offset forward to the start of the next line
+                long offset = Math.max(length / parts * i, offsets[i - 1]);
+                offsets[i] = offset > 0 ? findLineStart(file, offset) : 0;
+            }
+        }
+        catch (FileNotFoundException e) {
+            throw new RuntimeException("file not found", e);
+        }
+        catch (IOException e) {
+            throw new RuntimeException("io exception", e);
+        }
+
+        return offsets;
+    }
+
+    /**
+     * Returns the offset of the first line which starts at the given offset or after it
+     * @param file The file
+     * @param offset The offset, must be positive
+     */
+    private static long findLineStart(RandomAccessFile file, long offset) throws IOException {
+        // a line starts at the offset if the byte before it ends a line
+        file.seek(offset - 1);
+        int b;
+        do {
+            b = file.read();
+        } while (b != -1 && b != '\n');
+
+        return file.getFilePointer();
+    }
+
+    /**
+     * Perform an operation on each line in a range of the file at the specified path
+     * @param filePath The file path
+     * @param start The byte offset the range starts at, must be the start of a line
+     * @param end The byte offset the range ends at (exclusive), must be the start of a line
+     * @param action The action to perform on each line
+     */
+    static void iterateFileLines(String filePath, long start, long end, final Consumer<String> action) {
+        checkFilePath(filePath);
+        if (action == null) {
+            throw new RuntimeException("action is null.");
+        }
+
+        BufferedReader reader = null;
+
+        // the stream is closed even if wrapping it with the reader fails
+        try (FileInputStream stream = new FileInputStream(filePath)) {
+            stream.getChannel().position(start);
+            reader = new BufferedReader(new InputStreamReader(new RangeInputStream(stream, end - start)));
+            reader.lines().forEachOrdered(action);
+        }
+        catch (FileNotFoundException e) {
+            throw new RuntimeException("file not found", e);
+        }
+        catch (IOException | UncheckedIOException e) {
+            throw new RuntimeException("io exception", e);
+        }
+        finally {
+            closeReader(reader);
+        }
+    }
+
+    /**
+     * Runs the task on the specified amount of threads and waits for all of them to finish.
+     * An exception thrown by any of the tasks is rethrown.
+     * @param threads The amount of threads
+     * @param task The task, receives the number of the thread (0,...,threads-1)
+     */
+    static void runInParallel(int threads, final IntConsumer task) {
+        if (threads <= 0) {
+            throw new RuntimeException("threads must be a positive number.");
+        }
+        if (task == null) {
+            throw new RuntimeException("task is null.");
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Future<?>[] futures = new Future<?>[threads];
+            for (int i = 0; i < threads; i++) {
+                final int thread = i;
+                futures[i] = executor.submit(() -> task.accept(thread));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted", e);
+        }
+        catch (ExecutionException e) {
+            throw new RuntimeException("task failed", e.getCause());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * An input stream which reads at most a given amount of bytes from another stream
+     */
+    private static class RangeInputStream extends FilterInputStream {
+        private long remaining;
+
+        private RangeInputStream(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = -1;
+            if (this.remaining > 0) {
+                b = super.read();
+                this.remaining--;
+            }
+
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = -1;
+            if (this.remaining > 0) {
+                read = super.read(b, off, (int)Math.min(len, this.remaining));
+                if (read > 0) {
+                    this.remaining -= read;
+                }
+            }
+
+            return read;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int)Math.min(super.available(), this.remaining);
+        }
+    }
+
     /**
      * Calculates and formats the time it takes to search all the
      * keys which are specified in the file at the given path
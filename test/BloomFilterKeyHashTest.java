@@ -0,0 +1,47 @@
+/**
+ * Checks the bloom filters which probe with the hash functions file when their keys are 64 bit
+ * (a key hash function other than horner's rule).
+ * Run from the project folder, where the files of Runner are:
+ * javac -d bin src/*.java test/*.java && java -cp bin BloomFilterKeyHashTest
+ */
+public class BloomFilterKeyHashTest {
+    public static void main(String[] args) {
+        String hashFunctionsPath = System.getProperty("user.dir") + "/hash_functions.txt";
+        String badPasswordsPath = System.getProperty("user.dir") + "/bad_passwords.txt";
+        String[] badPasswords = Utils.readFileLines(badPasswordsPath);
+
+        for (boolean blocked : new boolean[] { false, true }) {
+            BloomFilter bloomFilter = new BloomFilter("600000", hashFunctionsPath, blocked, new MixPasswordHashFunction(1));
+            bloomFilter.updateTable(badPasswordsPath);
+            checkContainsAll(bloomFilter, badPasswords, "BloomFilter, blocked " + blocked);
+
+            ConcurrentBloomFilter concurrentBloomFilter =
+                new ConcurrentBloomFilter("600000", hashFunctionsPath, blocked, new MixPasswordHashFunction(1));
+            concurrentBloomFilter.updateTable(badPasswordsPath, 4);
+            checkContainsAll(concurrentBloomFilter, badPasswords, "ConcurrentBloomFilter, blocked " + blocked);
+
+            CountingBloomFilter countingBloomFilter =
+                new CountingBloomFilter("600000", hashFunctionsPath, blocked, new MixPasswordHashFunction(1));
+            countingBloomFilter.updateTable(badPasswordsPath);
+            checkContainsAll(countingBloomFilter, badPasswords, "CountingBloomFilter, blocked " + blocked);
+            for (String password : badPasswords) {
+                countingBloomFilter.remove(password);
+            }
+            for (String password : badPasswords) {
+                if (countingBloomFilter.contains(password)) {
+                    throw new RuntimeException("CountingBloomFilter, blocked " + blocked + ": " + password + " wasn't removed.");
+                }
+            }
+        }
+
+        System.out.println("ok");
+    }
+
+    private static void checkContainsAll(BloomFilter bloomFilter, String[] passwords, String name) {
+        for (String password : passwords) {
+            if (!bloomFilter.contains(password)) {
+                throw new RuntimeException(name + ": " + password + " was inserted but isn't contained.");
+            }
+        }
+    }
+}